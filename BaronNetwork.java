@@ -0,0 +1,130 @@
+package student;
+
+/**
+ * The network of track that one baron has claimed, kept as a union-find over station ids.
+ * Every claimed route joins the sets of its two stations, so asking whether two stations are
+ * connected by the baron's track does not need a search through the graph. Uses path halving
+ * and union by rank, stored in primitive arrays.
+ *
+ * Each set also remembers which edges of the map its routes touch. When a set touches both
+ * the northern and southern edges, or both the eastern and western edges, the baron's network
+ * spans the map in that direction.
+ */
+public class BaronNetwork {
+    public static final int NORTH = 1;
+    public static final int SOUTH = 2;
+    public static final int EAST = 4;
+    public static final int WEST = 8;
+
+    private int[] parent;
+    private byte[] rank;
+    private byte[] edges;
+    private boolean northSouth;
+    private boolean eastWest;
+
+    /**
+     * Constructor for a network with no claimed routes, every station is on its own.
+     * @param stationCount the number of stations on the map
+     */
+    public BaronNetwork(int stationCount) {
+        this.parent = new int[stationCount];
+        this.rank = new byte[stationCount];
+        this.edges = new byte[stationCount];
+        for(int i = 0; i < stationCount; i++) {
+            this.parent[i] = i;
+        }
+    }
+
+    /**
+     * Finds the station that represents the set a station is in.
+     * @param station the id of the station
+     * @return the id of the representative station of the set
+     */
+    public int find(int station) {
+        while(this.parent[station] != station) {
+            this.parent[station] = this.parent[this.parent[station]];
+            station = this.parent[station];
+        }
+        return station;
+    }
+
+    /**
+     * Joins the sets of the two stations at the ends of a claimed route.
+     * @param origin the id of the origin station
+     * @param destination the id of the destination station
+     * @return the representative of the joined set
+     */
+    public int union(int origin, int destination) {
+        return union(origin, destination, 0);
+    }
+
+    /**
+     * Joins the sets of the two stations at the ends of a claimed route, and marks the joined
+     * set as touching the map edges that the route touches.
+     * @param origin the id of the origin station
+     * @param destination the id of the destination station
+     * @param routeEdges the NORTH, SOUTH, EAST and WEST bits of the edges the route touches
+     * @return the representative of the joined set
+     */
+    public int union(int origin, int destination, int routeEdges) {
+        int a = find(origin);
+        int b = find(destination);
+        if(a != b) {
+            if(this.rank[a] < this.rank[b]) {
+                int swap = a;
+                a = b;
+                b = swap;
+            }
+            this.parent[b] = a;
+            if(this.rank[a] == this.rank[b]) {
+                this.rank[a]++;
+            }
+        }
+        int touched = this.edges[a] | this.edges[b] | routeEdges;
+        this.edges[a] = (byte)touched;
+        if((touched & (NORTH | SOUTH)) == (NORTH | SOUTH)) {
+            this.northSouth = true;
+        }
+        if((touched & (EAST | WEST)) == (EAST | WEST)) {
+            this.eastWest = true;
+        }
+        return a;
+    }
+
+    /**
+     * Checks whether two stations are connected by the baron's track.
+     * @param a the id of one station
+     * @param b the id of the other station
+     * @return true if the stations are in the same set, false if not
+     */
+    public boolean connected(int a, int b) {
+        return find(a) == find(b);
+    }
+
+    /**
+     * Accessor for the edges of the map touched by the set a station is in
+     * @param station the id of the station
+     * @return the NORTH, SOUTH, EAST and WEST bits of the edges the set touches
+     */
+    public int getEdges(int station) {
+        return this.edges[find(station)];
+    }
+
+    /**
+     * Checks whether one connected piece of the network reaches from the northern edge of the
+     * map to the southern edge.
+     * @return true if the network spans the map from north to south
+     */
+    public boolean spansNorthSouth() {
+        return this.northSouth;
+    }
+
+    /**
+     * Checks whether one connected piece of the network reaches from the eastern edge of the
+     * map to the western edge.
+     * @return true if the network spans the map from east to west
+     */
+    public boolean spansEastWest() {
+        return this.eastWest;
+    }
+}
@@ -0,0 +1,225 @@
+package student;
+
+import model.Baron;
+import model.RailroadBaronsException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Reads and writes the compiled binary map format. A compiled map holds the same information
+ * as a text map file, laid out so that it can be loaded with bulk copies instead of being
+ * tokenized:
+ * <ol>
+ *     <li>A 36 byte header: the magic number, the format version, the flags, the number of
+ *     rows and columns, the number of stations and routes, the size of the name pool and a
+ *     CRC32 checksum of everything after the header.</li>
+ *     <li>The station table, one column at a time: station numbers, rows, columns, and the
+ *     offset of each name in the name pool (plus one extra offset for the end of the pool).</li>
+ *     <li>The route table, one column at a time: origin station ids, destination station ids,
+ *     and one byte per route for the owner.</li>
+ *     <li>The name pool, every station name in UTF-8.</li>
+ * </ol>
+ * All numbers are big-endian ints. A map that was checked by a {@link MapValidator} when it
+ * was compiled has the {@link #VALIDATED} flag set, and is not checked again when it is loaded
+ * as long as its checksum matches.
+ */
+public class BinaryMapFormat {
+    public static final int MAGIC = 0x52424D43;
+    public static final int VERSION = 2;
+    public static final int HEADER_SIZE = 36;
+    public static final int VALIDATED = 1;
+
+    /**
+     * Checks whether a buffer starts with a compiled map, without moving the buffer's position.
+     * @param buffer the buffer to look at
+     * @return true if the buffer starts with the compiled map magic number
+     */
+    public static boolean isCompiled(ByteBuffer buffer) {
+        return buffer.remaining() >= 4 && buffer.getInt(buffer.position()) == MAGIC;
+    }
+
+    /**
+     * Writes a map's topology and route owners in the compiled format.
+     * @param topology the layout of the map
+     * @param owners the owner of each route, by Baron ordinal
+     * @return the compiled map
+     */
+    public static ByteBuffer write(MapTopology topology, byte[] owners) {
+        int stations = topology.getStationCount();
+        int routes = topology.getRouteCount();
+        byte[][] names = new byte[stations][];
+        int poolSize = 0;
+        for(int i = 0; i < stations; i++) {
+            names[i] = topology.getStation(i).getName().getBytes(StandardCharsets.UTF_8);
+            poolSize += names[i].length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size(stations, routes, poolSize));
+        buffer.position(HEADER_SIZE);
+        for(int i = 0; i < stations; i++) {
+            buffer.putInt(topology.getStationNumber(i));
+        }
+        for(int i = 0; i < stations; i++) {
+            buffer.putInt(topology.getStation(i).getRow());
+        }
+        for(int i = 0; i < stations; i++) {
+            buffer.putInt(topology.getStation(i).getCol());
+        }
+        int offset = 0;
+        for(int i = 0; i < stations; i++) {
+            buffer.putInt(offset);
+            offset += names[i].length;
+        }
+        buffer.putInt(offset);
+        for(int i = 0; i < routes; i++) {
+            buffer.putInt(topology.getOrigin(i));
+        }
+        for(int i = 0; i < routes; i++) {
+            buffer.putInt(topology.getDestination(i));
+        }
+        buffer.put(owners);
+        for(int i = 0; i < stations; i++) {
+            buffer.put(names[i]);
+        }
+
+        CRC32 checksum = new CRC32();
+        checksum.update(buffer.array(), HEADER_SIZE, buffer.capacity() - HEADER_SIZE);
+        buffer.position(0);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(topology.isValidated() ? VALIDATED : 0)
+                .putInt(topology.getRows()).putInt(topology.getCols()).putInt(stations).putInt(routes).putInt(poolSize).putInt((int)checksum.getValue());
+        buffer.position(0);
+        return buffer;
+    }
+
+    /**
+     * Reads a compiled map, from the buffer's position to its limit. The header is checked
+     * before anything else is read, and the tables are copied out of the buffer in bulk. A map
+     * without the {@link #VALIDATED} flag is checked by a {@link MapValidator}; one with it only
+     * has its station ids, owners and names checked, which is enough to build it safely.
+     * @param buffer the compiled map, which may be a memory-mapped file
+     * @param owners receives the owner of each route, by Baron ordinal; must have one entry
+     *               per route, use {@link #routeCount(ByteBuffer)} to size it
+     * @return the topology of the map
+     * @throws RailroadBaronsException if the header or checksum does not match the contents
+     * @throws InvalidMapException if the map was not validated when it was compiled and has
+     * problems that a {@link MapValidator} finds, the same as a map file read as text
+     */
+    public static MapTopology read(ByteBuffer buffer, byte[] owners) throws RailroadBaronsException {
+        ByteBuffer map = buffer.slice();
+        if(map.remaining() < HEADER_SIZE || map.getInt(0) != MAGIC) {
+            throw new RailroadBaronsException("Not a compiled map");
+        }
+        if(map.getInt(4) != VERSION) {
+            throw new RailroadBaronsException("Unsupported compiled map version " + map.getInt(4)
+                    + ", compile the map again");
+        }
+        boolean validated = (map.getInt(8) & VALIDATED) != 0;
+        int rows = map.getInt(12);
+        int cols = map.getInt(16);
+        int stations = map.getInt(20);
+        int routes = map.getInt(24);
+        int poolSize = map.getInt(28);
+        if(stations < 0 || routes < 0 || poolSize < 0 || owners.length != routes
+                || (long)map.remaining() != size((long)stations, routes, poolSize)) {
+            throw new RailroadBaronsException("Compiled map header does not match its size");
+        }
+        CRC32 checksum = new CRC32();
+        map.position(HEADER_SIZE);
+        checksum.update(map);
+        if((int)checksum.getValue() != map.getInt(32)) {
+            throw new RailroadBaronsException("Compiled map checksum does not match");
+        }
+
+        map.position(HEADER_SIZE);
+        int[] numbers = ints(map, stations);
+        int[] stationRows = ints(map, stations);
+        int[] stationCols = ints(map, stations);
+        int[] nameOffsets = ints(map, stations + 1);
+        int[] origins = ints(map, routes);
+        int[] destinations = ints(map, routes);
+        map.get(owners);
+        byte[] pool = new byte[poolSize];
+        map.get(pool);
+
+        String[] names = new String[stations];
+        for(int i = 0; i < stations; i++) {
+            if(nameOffsets[i] < 0 || nameOffsets[i] > nameOffsets[i + 1] || nameOffsets[i + 1] > poolSize) {
+                throw new RailroadBaronsException("Compiled map has a bad name for station " + numbers[i]);
+            }
+            names[i] = new String(pool, nameOffsets[i], nameOffsets[i + 1] - nameOffsets[i], StandardCharsets.UTF_8);
+        }
+        for(int i = 0; i < routes; i++) {
+            if(owners[i] < 0 || owners[i] >= Baron.values().length) {
+                throw new RailroadBaronsException("Compiled map has a bad owner for route " + i);
+            }
+            if(origins[i] < 0 || origins[i] >= stations || destinations[i] < 0 || destinations[i] >= stations) {
+                throw new RailroadBaronsException("Compiled map has a bad station id in route " + i);
+            }
+        }
+        if(!validated) {
+            List<String> problems = new MapValidator(numbers, stationRows, stationCols, origins, destinations)
+                    .validate();
+            if(!problems.isEmpty()) {
+                throw new InvalidMapException(problems);
+            }
+        }
+
+        MapTopology topology = new MapTopology(numbers, stationRows, stationCols, names, origins, destinations,
+                true);
+        if(topology.getRows() != rows || topology.getCols() != cols) {
+            throw new RailroadBaronsException("Compiled map size does not match its stations");
+        }
+        return topology;
+    }
+
+    /**
+     * Reads the number of routes from a compiled map header.
+     * @param buffer the compiled map
+     * @return the number of routes in the map
+     * @throws RailroadBaronsException if the buffer does not start with a compiled map header
+     */
+    public static int routeCount(ByteBuffer buffer) throws RailroadBaronsException {
+        if(buffer.remaining() < HEADER_SIZE || !isCompiled(buffer)) {
+            throw new RailroadBaronsException("Not a compiled map");
+        }
+        return Math.max(buffer.getInt(buffer.position() + 24), 0);
+    }
+
+    /**
+     * Copies a column of ints out of the buffer in one go.
+     * @param buffer the buffer positioned at the start of the column
+     * @param count the number of ints in the column
+     * @return the column
+     */
+    private static int[] ints(ByteBuffer buffer, int count) {
+        int[] column = new int[count];
+        buffer.asIntBuffer().get(column);
+        buffer.position(buffer.position() + count * 4);
+        return column;
+    }
+
+    /**
+     * Works out the size of a compiled map.
+     * @param stations the number of stations
+     * @param routes the number of routes
+     * @param poolSize the number of bytes of station names
+     * @return the number of bytes in the compiled map
+     */
+    private static int size(int stations, int routes, int poolSize) {
+        return (int)size((long)stations, routes, poolSize);
+    }
+
+    /**
+     * Works out the size of a compiled map without overflowing.
+     * @param stations the number of stations
+     * @param routes the number of routes
+     * @param poolSize the number of bytes of station names
+     * @return the number of bytes in the compiled map
+     */
+    private static long size(long stations, long routes, long poolSize) {
+        return HEADER_SIZE + stations * 16 + 4 + routes * 9 + poolSize;
+    }
+}
@@ -0,0 +1,419 @@
+package student;
+
+import model.Baron;
+import model.ClaimRecorder;
+import model.Player;
+import model.RailroadBarons;
+import model.RailroadBaronsException;
+import model.RailroadMap;
+import model.Route;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * An append-only record of the routes claimed during a game, kept in a file next to the map
+ * file the game was started from. Every claim is written as one fixed size record holding the
+ * route id, the baron and the turn, so saving a claim is one small write to the end of the
+ * file. Every so often the whole map is written out as a compiled snapshot and the log is
+ * emptied, so the log never grows much.
+ *
+ * A new game is logged with {@link #start}. Any log and snapshot left from an earlier game on
+ * the same map are not deleted but renamed with {@link #OLD_EXTENSION} added, replacing the
+ * files kept from the game before that. When a game is over there is nothing to pick up
+ * again, so the log is emptied and the snapshot deleted, and {@link #hasRecord} is false.
+ * A game that stopped part way through is picked up again with
+ * {@link #resume}, which loads the latest snapshot (or the map file if there is none), claims
+ * every route in the log again and carries on logging. A record that was only partly written
+ * when the game stopped is ignored.
+ *
+ * The log observes the map itself, but has to be added as an observer of the game to count the
+ * turns. A claim that cannot be written to the log is saved by writing a snapshot instead, and
+ * if that fails too the failure is passed on so the player can be warned.
+ */
+public class ClaimLog implements ClaimRecorder {
+    public static final String LOG_EXTENSION = ".claims";
+    public static final String SNAPSHOT_EXTENSION = ".snapshot";
+    public static final String OLD_EXTENSION = ".old";
+
+    private static final int MAGIC = 0x5242434C;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 12;
+    private static final int RECORD_SIZE = 12;
+    private static final int COMPACT_RECORDS = 256;
+
+    private Path mapFile;
+    private MapMakerModel mapMaker;
+    private RailroadBaronsMapModel map;
+    private Consumer<String> failures;
+    private FileChannel channel;
+    private ByteBuffer record;
+    private int records;
+    private int turn;
+
+    /**
+     * Starts logging the claims made on a new game. The log and snapshot of an earlier game on
+     * the same map are kept next to the new ones, renamed with {@link #OLD_EXTENSION} added.
+     * @param mapFile the map file the game was started from
+     * @param mapMaker the map maker used to write snapshots
+     * @param map the map the game is played on
+     * @param failures told about any claim that could not be logged
+     * @return the log, which is already observing the map
+     * @throws RailroadBaronsException if the log cannot be opened
+     */
+    public static ClaimLog start(Path mapFile, MapMakerModel mapMaker, RailroadBaronsMapModel map,
+                                 Consumer<String> failures) throws RailroadBaronsException {
+        try {
+            keepOld(logFile(mapFile));
+            keepOld(snapshotFile(mapFile));
+        }
+        catch (IOException ioe) {
+            throw new RailroadBaronsException("Failed to keep old claim log: " + ioe.getMessage());
+        }
+        return new ClaimLog(mapFile, mapMaker, map, failures);
+    }
+
+    /**
+     * Checks whether a game on a map file stopped before it was over, so that it can be picked
+     * up again with {@link #resume}.
+     * @param mapFile the map file the game was started from
+     * @return true if there is a snapshot or at least one logged claim for the map file
+     */
+    public static boolean hasRecord(Path mapFile) {
+        try {
+            Path log = logFile(mapFile);
+            return Files.exists(snapshotFile(mapFile))
+                    || (Files.exists(log) && Files.size(log) >= HEADER_SIZE + RECORD_SIZE);
+        }
+        catch (IOException ioe) {
+            return false;
+        }
+    }
+
+    /**
+     * Renames a file from an earlier game with {@link #OLD_EXTENSION} added, replacing the
+     * file kept from the game before that.
+     * @param file the file to keep
+     * @throws IOException if the file cannot be renamed
+     */
+    private static void keepOld(Path file) throws IOException {
+        Path old = file.resolveSibling(file.getFileName() + OLD_EXTENSION);
+        if(Files.exists(file)) {
+            Files.move(file, old, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Picks up a game that stopped part way through, and carries on logging its claims.
+     * @param mapFile the map file the game was started from
+     * @param mapMaker the map maker used to read the map and write snapshots
+     * @param failures told about any claim that could not be logged
+     * @return the log, which is already observing the recovered map
+     * @throws RailroadBaronsException if the map or the log cannot be read
+     */
+    public static ClaimLog resume(Path mapFile, MapMakerModel mapMaker, Consumer<String> failures)
+            throws RailroadBaronsException {
+        return new ClaimLog(mapFile, mapMaker, recover(mapFile, mapMaker), failures);
+    }
+
+    /**
+     * Opens the log next to a map file. Any log already there is kept, apart from a partly
+     * written record at the end, so a recovered game carries on from where it stopped.
+     * @param mapFile the map file the game was started from
+     * @param mapMaker the map maker used to write snapshots
+     * @param map the map the game is played on
+     * @param failures told about any claim that could not be logged
+     * @throws RailroadBaronsException if the log cannot be opened
+     */
+    private ClaimLog(Path mapFile, MapMakerModel mapMaker, RailroadBaronsMapModel map, Consumer<String> failures)
+            throws RailroadBaronsException {
+        this.mapFile = mapFile;
+        this.mapMaker = mapMaker;
+        this.map = map;
+        this.failures = failures;
+        this.record = ByteBuffer.allocate(RECORD_SIZE);
+        try {
+            this.channel = FileChannel.open(logFile(mapFile), StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long size = this.channel.size();
+            if(size < HEADER_SIZE || !hasHeader(this.channel, map)) {
+                this.channel.truncate(0);
+                writeHeader();
+                size = HEADER_SIZE;
+            }
+            this.records = (int)((size - HEADER_SIZE) / RECORD_SIZE);
+            this.channel.truncate(HEADER_SIZE + (long)this.records * RECORD_SIZE);
+            this.channel.position(this.channel.size());
+            this.turn = lastTurn();
+        }
+        catch (IOException ioe) {
+            throw new RailroadBaronsException("Failed to open claim log: " + ioe.getMessage());
+        }
+        map.addObserver(this);
+    }
+
+    /**
+     * Loads a game that stopped part way through: the latest snapshot of the map, or the map
+     * file itself if no snapshot has been written, with every claim in the log made again.
+     * @param mapFile the map file the game was started from
+     * @param mapMaker the map maker used to read the map
+     * @return the map as it was when the last claim was logged
+     * @throws RailroadBaronsException if the map or the log cannot be read
+     */
+    private static RailroadBaronsMapModel recover(Path mapFile, MapMakerModel mapMaker)
+            throws RailroadBaronsException {
+        Path snapshot = snapshotFile(mapFile);
+        RailroadMap base = mapMaker.readMap(Files.exists(snapshot) ? snapshot : mapFile);
+        if(!(base instanceof RailroadBaronsMapModel)) {
+            throw new RailroadBaronsException("Claim logs need maps read by a MapMakerModel");
+        }
+        RailroadBaronsMapModel map = (RailroadBaronsMapModel)base;
+        Path log = logFile(mapFile);
+        if(!Files.exists(log)) {
+            return map;
+        }
+
+        try(FileChannel channel = FileChannel.open(log, StandardOpenOption.READ)) {
+            if(channel.size() < HEADER_SIZE || !hasHeader(channel, map)) {
+                return map;
+            }
+            int records = (int)((channel.size() - HEADER_SIZE) / RECORD_SIZE);
+            ByteBuffer buffer = ByteBuffer.allocate(records * RECORD_SIZE);
+            while(buffer.hasRemaining() && channel.read(buffer, HEADER_SIZE + buffer.position()) >= 0) {
+                continue;
+            }
+            buffer.flip();
+            Baron[] barons = Baron.values();
+            while(buffer.remaining() >= RECORD_SIZE) {
+                int route = buffer.getInt();
+                int baron = buffer.getInt();
+                buffer.getInt();
+                if(route >= 0 && route < map.getTopology().getRouteCount() && baron > 0 && baron < barons.length) {
+                    map.claim(route, barons[baron]);
+                }
+            }
+        }
+        catch (IOException ioe) {
+            throw new RailroadBaronsException("Failed to read claim log: " + ioe.getMessage());
+        }
+        return map;
+    }
+
+    /**
+     * Logs a claim as soon as it is made, compacting the log once it has grown. If the claim
+     * cannot be written, the log is compacted straight away so the claim is kept in the
+     * snapshot, and only if that fails too is the failure passed on.
+     * @param map The RailroadMap on which the Route has been claimed.
+     * @param route The Route that has been claimed.
+     */
+    @Override
+    public void routeClaimed(RailroadMap map, Route route) {
+        try {
+            this.record.clear();
+            this.record.putInt(((RouteModel)route).getId()).putInt(route.getBaron().ordinal()).putInt(this.turn);
+            this.record.flip();
+            while(this.record.hasRemaining()) {
+                this.channel.write(this.record);
+            }
+            this.records++;
+            if(this.records >= COMPACT_RECORDS) {
+                compact();
+            }
+        }
+        catch (IOException ioe) {
+            try {
+                compact();
+            }
+            catch (RailroadBaronsException rbe) {
+                this.failures.accept("Failed to log claim: " + ioe.getMessage());
+            }
+        }
+        catch (RailroadBaronsException rbe) {
+            this.failures.accept(rbe.getMessage());
+        }
+    }
+
+    /**
+     * Accessor for the map whose claims are logged
+     * @return the map
+     */
+    @Override
+    public RailroadBaronsMapModel getMap() {
+        return this.map;
+    }
+
+    /**
+     * Carries on logging on a new version of the map. The records in the log name routes by
+     * their ids on the old map, so the new map is written out as a snapshot, emptying the log,
+     * before the header is changed to match the new map.
+     * @param map the new version of the map, already claimed as the old map was
+     * @throws RailroadBaronsException if the map was not read by a MapMakerModel, or the
+     * snapshot cannot be written
+     */
+    @Override
+    public void changeMap(RailroadMap map) throws RailroadBaronsException {
+        if(!(map instanceof RailroadBaronsMapModel)) {
+            throw new RailroadBaronsException("Claim logs need maps read by a MapMakerModel");
+        }
+        this.map.removeObserver(this);
+        this.map = (RailroadBaronsMapModel)map;
+        this.map.addObserver(this);
+        compact();
+        try {
+            writeHeader();
+            this.channel.force(true);
+        }
+        catch (IOException ioe) {
+            throw new RailroadBaronsException("Failed to write claim log: " + ioe.getMessage());
+        }
+    }
+
+    /**
+     * Counts the turns, so each claim can be logged with the turn it was made in.
+     * @param game The game for which a new turn has started.
+     * @param player The player that has just started a turn.
+     */
+    @Override
+    public void turnStarted(RailroadBarons game, Player player) {
+        this.turn++;
+    }
+
+    /**
+     * Does nothing, claims are logged as soon as they are made.
+     * @param game The game for which the current turn has ended.
+     * @param player The player whose turn has ended.
+     */
+    @Override
+    public void turnEnded(RailroadBarons game, Player player) {
+    }
+
+    /**
+     * Empties the log and deletes the snapshot, since a game that is over has nothing to pick
+     * up again.
+     * @param game The game that has ended.
+     * @param winner The winning player.
+     */
+    @Override
+    public void gameOver(RailroadBarons game, Player winner) {
+        try {
+            this.channel.truncate(HEADER_SIZE);
+            this.channel.position(HEADER_SIZE);
+            this.channel.force(true);
+            this.records = 0;
+            Files.deleteIfExists(snapshotFile(this.mapFile));
+        }
+        catch (IOException ioe) {
+            this.failures.accept("Failed to clear claim log: " + ioe.getMessage());
+        }
+    }
+
+    /**
+     * Writes the whole map out as a snapshot and empties the log. The snapshot is written to
+     * a temporary file first and then moved into place, and the log is only emptied once the
+     * snapshot is safely on disk, so a game that stops during compaction loses nothing.
+     * @throws RailroadBaronsException if the snapshot cannot be written
+     */
+    public void compact() throws RailroadBaronsException {
+        Path snapshot = snapshotFile(this.mapFile);
+        Path temporary = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+        try {
+            try(FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                OutputStream stream = Channels.newOutputStream(out);
+                this.mapMaker.writeCompiledMap(this.map, stream);
+                out.force(true);
+            }
+            Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            this.channel.truncate(HEADER_SIZE);
+            this.channel.position(HEADER_SIZE);
+            this.channel.force(true);
+            this.records = 0;
+        }
+        catch (IOException ioe) {
+            throw new RailroadBaronsException("Failed to compact claim log: " + ioe.getMessage());
+        }
+    }
+
+    /**
+     * Stops logging claims and closes the log file.
+     * @throws RailroadBaronsException if the log cannot be closed
+     */
+    @Override
+    public void close() throws RailroadBaronsException {
+        this.map.removeObserver(this);
+        try {
+            this.channel.force(true);
+            this.channel.close();
+        }
+        catch (IOException ioe) {
+            throw new RailroadBaronsException("Failed to close claim log: " + ioe.getMessage());
+        }
+    }
+
+    /**
+     * Writes the header at the start of the log, recording how many routes the map has.
+     * @throws IOException if the header cannot be written
+     */
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putInt(this.map.getTopology().getRouteCount()).flip();
+        while(header.hasRemaining()) {
+            this.channel.write(header, header.position());
+        }
+    }
+
+    /**
+     * Finds the turn of the last claim in the log, so a recovered game keeps counting turns
+     * from where it stopped.
+     * @return the turn of the last logged claim, or 0 if the log is empty
+     * @throws IOException if the log cannot be read
+     */
+    private int lastTurn() throws IOException {
+        if(this.records == 0) {
+            return 0;
+        }
+        ByteBuffer last = ByteBuffer.allocate(RECORD_SIZE);
+        this.channel.read(last, HEADER_SIZE + (long)(this.records - 1) * RECORD_SIZE);
+        return last.getInt(8);
+    }
+
+    /**
+     * Checks that a log was written for a map with the same routes as the given map.
+     * @param channel the log
+     * @param map the map
+     * @return true if the log's header matches the map
+     * @throws IOException if the log cannot be read
+     */
+    private static boolean hasHeader(FileChannel channel, RailroadBaronsMapModel map) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        channel.read(header, 0);
+        return header.getInt(0) == MAGIC && header.getInt(4) == VERSION
+                && header.getInt(8) == map.getTopology().getRouteCount();
+    }
+
+    /**
+     * Works out where the log for a map file is kept.
+     * @param mapFile the map file
+     * @return the path of the log
+     */
+    public static Path logFile(Path mapFile) {
+        return mapFile.resolveSibling(mapFile.getFileName() + LOG_EXTENSION);
+    }
+
+    /**
+     * Works out where the snapshot for a map file is kept.
+     * @param mapFile the map file
+     * @return the path of the snapshot
+     */
+    public static Path snapshotFile(Path mapFile) {
+        return mapFile.resolveSibling(mapFile.getFileName() + SNAPSHOT_EXTENSION);
+    }
+}
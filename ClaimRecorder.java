@@ -0,0 +1,40 @@
+package model;
+
+/**
+ * Interface for a class that keeps a record of the {@linkplain Route routes}
+ * claimed during a game, so that a game that stops part way through can be
+ * picked up again. A recorder observes the {@linkplain RailroadMap map} the
+ * game is played on, and must also be added as an
+ * {@linkplain RailroadBaronsObserver observer} of the
+ * {@linkplain RailroadBarons game} so that it can count the turns.
+ */
+public interface ClaimRecorder extends RailroadMapObserver,
+        RailroadBaronsObserver {
+    /**
+     * Returns the {@linkplain RailroadMap map} whose claims are recorded.
+     *
+     * @return The {@link RailroadMap} whose claims are recorded.
+     */
+    RailroadMap getMap();
+
+    /**
+     * Carries on recording claims on a new version of the
+     * {@linkplain RailroadMap map}, e.g. after the map file has been edited.
+     * The new map should already be claimed as the old map was, and those
+     * claims are recorded straight away.
+     *
+     * @param map The new version of the {@link RailroadMap}.
+     *
+     * @throws RailroadBaronsException If the claims on the new map cannot be
+     * recorded.
+     */
+    void changeMap(RailroadMap map) throws RailroadBaronsException;
+
+    /**
+     * Stops recording claims, and stops observing the
+     * {@linkplain RailroadMap map}.
+     *
+     * @throws RailroadBaronsException If the record cannot be closed.
+     */
+    void close() throws RailroadBaronsException;
+}
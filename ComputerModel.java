@@ -5,25 +5,25 @@ import model.*;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Model for a computer player, simulates button presses and for the most part acts
- * the same way as a normal player. It is not very smart.
+ * the same way as a normal player. It is not very smart, but it does claim the route that
+ * makes its longest continuous track the longest.
  * @author Ben Donahue
  */
 public class ComputerModel implements Player {
     private List<Route> claimedRoutes;
-    private List<Route> unclaimedRoutes;
-    private List<Card> hand;
+    private Hand hand;
+    private Pair lastDealt;
+    private long claimableLengths;
     private List<PlayerObserver> observers;
     private Baron baron;
-    private Graph graph;
     private RailroadMap map;
     private RBLonelyEdition game;
     protected int score;
     protected  int numPieces;
-    private Card[] colors =  {Card.BLACK, Card.BLUE, Card.GREEN, Card.ORANGE, Card.PINK, Card.RED, Card.WHITE,
-            Card.YELLOW, Card.WILD};
 
     /**
      * Constructor for the computer model, takes a copy of the game as well as the map.
@@ -35,18 +35,12 @@ public class ComputerModel implements Player {
         this.baron = baron;
         this.game = game;
         this.claimedRoutes = new ArrayList<>();
-        this.unclaimedRoutes = new ArrayList<>();
         this.score = 0;
         this.numPieces = 45;
-        this.hand = new ArrayList<>();
+        this.hand = new Hand();
+        this.lastDealt = PairModel.NO_CARDS;
         this.observers = new ArrayList<>();
-        this.graph = new student.Graph();
         this.map = map;
-        for(Route route: map.getRoutes()) {
-            if(route.getBaron() == Baron.UNCLAIMED || route.getBaron() == null) {
-                this.unclaimedRoutes.add(route);
-            }
-        }
     }
 
     /**
@@ -55,12 +49,9 @@ public class ComputerModel implements Player {
      */
     @Override
     public void reset(Card... dealt) {
-        //card... is an array, so iterate over dealt and add each card to hand
-        this.hand = new ArrayList<>();
-        int i;
-        for(i = 0; i < dealt.length; i++) {
-            this.hand.add(dealt[i]);
-        }
+        this.hand.reset(dealt);
+        this.lastDealt = PairModel.NO_CARDS;
+        updateClaimableLengths();
         this.notifyObservers();
     }
 
@@ -97,18 +88,19 @@ public class ComputerModel implements Player {
      */
     @Override
     public void startTurn(Pair dealt) {
-        hand.add(dealt.getFirstCard());
-        hand.add(dealt.getSecondCard());
+        this.lastDealt = dealt;
+        this.hand.add(dealt.getFirstCard());
+        this.hand.add(dealt.getSecondCard());
+        updateClaimableLengths();
         this.notifyObservers();
-        for(Route route: this.unclaimedRoutes) {
-            if(this.canClaimRoute(route)) {
-                try {
-                    this.claimRoute(route);
-                    this.map.routeClaimed(route);
-                    break;
-                } catch (RailroadBaronsException e) {
-                    e.printStackTrace();
-                }
+        List<Route> claimable = this.getClaimableRoutes(this.map);
+        if(!claimable.isEmpty()) {
+            Route route = chooseRoute(claimable);
+            try {
+                this.claimRoute(route);
+                this.map.routeClaimed(route);
+            } catch (RailroadBaronsException e) {
+                e.printStackTrace();
             }
         }
         this.game.endTurn();
@@ -116,37 +108,14 @@ public class ComputerModel implements Player {
     }
 
     /**
-     * Return the last pair the player was dealt by retrieving the last two cards
-     * from their hand.
-     * @return the last pair the player
+     * Return the last pair the player was dealt, which is kept when the turn starts so it is
+     * still right after the cards have been spent. Before the first turn, and after the hand
+     * is reset, both cards are NONE.
+     * @return the last pair the player was dealt
      */
     @Override
     public Pair getLastTwoCards() {
-        Pair lastPair;
-        try {
-            if (this.hand.size() >= 2) {
-                Card secondToLast = this.hand.get(this.hand.size() - 1);
-                Card last = this.hand.get(this.hand.size() - 2);
-                lastPair = new PairModel(secondToLast, last);
-            } else {
-                Card secondToLast = this.hand.get(0);
-                Card last = this.hand.get(this.hand.size());
-                lastPair = new PairModel(secondToLast, last);
-            }
-        }
-
-        //used to handle the event that a player uses all of their cards in one turn, and similar issues
-        //this is mostly used to catch an inconsistent bug in claiming a route
-        catch (IndexOutOfBoundsException ioobe) {
-            try{
-                return new PairModel(this.hand.get(0), Card.NONE);
-            }
-            catch (IndexOutOfBoundsException ioobe2) {
-                return new PairModel(Card.NONE, Card.NONE);
-            }
-
-        }
-        return lastPair;
+        return this.lastDealt;
     }
 
     /**
@@ -156,13 +125,7 @@ public class ComputerModel implements Player {
      */
     @Override
     public int countCardsInHand(Card card) {
-        int i = 0;
-        for(Card match: hand) {
-            if(match.equals(card)) {
-                i++;
-            }
-        }
-        return i;
+        return this.hand.count(card);
     }
 
     /**
@@ -182,21 +145,58 @@ public class ComputerModel implements Player {
      */
     @Override
     public boolean canClaimRoute(Route route) {
-        int i;
+        int length = route.getLength();
+        return length < Long.SIZE && (this.claimableLengths & 1L << length) != 0
+                && route.getBaron().equals(Baron.UNCLAIMED);
+    }
 
-        //iterate through every card color to see if the player has enough cards of one color
-        //to claim the route
-        for(i = 0; i < colors.length - 1; i++) {
-            //check for same amount of one color
-            if((countCardsInHand(colors[i]) >= route.getLength() ||
-                    //check for color and wild cards
-                    (countCardsInHand(colors[i]) >= route.getLength() - 1 && countCardsInHand(colors[8]) >= 1))
-                    //check number of pieces
-                    && this.numPieces >= route.getLength() && route.getBaron().equals(Baron.UNCLAIMED)) {
-                return true;
+    /**
+     * Lists every route on the map the player can claim right now.
+     * @param map the map being played on
+     * @return the routes the player can claim
+     */
+    public List<Route> getClaimableRoutes(RailroadMap map) {
+        if(map instanceof RailroadBaronsMapModel) {
+            return ((RailroadBaronsMapModel)map).getUnclaimedRoutes(this.claimableLengths);
+        }
+        List<Route> claimable = new ArrayList<>();
+        for(Route route: map.getRoutes()) {
+            if(canClaimRoute(route)) {
+                claimable.add(route);
             }
         }
-        return false;
+        return claimable;
+    }
+
+    /**
+     * Picks which of the routes the player can claim to claim. Each route is weighed by how
+     * long the player's longest continuous track would be with it, and the first of the best
+     * is picked. On a map that cannot weigh routes the first route is picked.
+     * @param claimable the routes the player can claim, not empty
+     * @return the route to claim
+     */
+    private Route chooseRoute(List<Route> claimable) {
+        Route choice = claimable.get(0);
+        if(this.map instanceof RailroadBaronsMapModel) {
+            RailroadBaronsMapModel model = (RailroadBaronsMapModel)this.map;
+            int longest = -1;
+            for(Route route: claimable) {
+                int length = model.getLongestTrackWith(this.baron, route);
+                if(length > longest) {
+                    longest = length;
+                    choice = route;
+                }
+            }
+        }
+        return choice;
+    }
+
+    /**
+     * Works out again which lengths of route the player can claim. Called whenever the
+     * player's hand or number of pieces changes, so checking a route is a single bit test.
+     */
+    private void updateClaimableLengths() {
+        this.claimableLengths = this.hand.getClaimableLengths(this.numPieces);
     }
 
     /**
@@ -210,32 +210,12 @@ public class ComputerModel implements Player {
     @Override
     public void claimRoute(Route route) throws RailroadBaronsException {
         if(this.canClaimRoute(route)) {
-            this.unclaimedRoutes.remove(route);
+            PaymentPlanner.pay(this.hand, route.getLength());
             route.claim(this.baron);
-            int cardChoice = chooseCard(route.getLength());
-            int i;
-            int j = countCardsInHand(colors[cardChoice]);
-
-            //use all of one color
-            if(j == route.getLength()) {
-                for (i = 1; i <= route.getLength(); i++) {
-                    this.hand.remove(colors[cardChoice]);
-                }
-            }
-
-            //use all of one color plus one wild card
-            else if(j < route.getLength()) {
-                for(i = 1; i <= route.getLength() - 1; i++) {
-                    this.hand.remove(colors[cardChoice]);
-                }
-                this.hand.remove(colors[8]);
-            }
-
             this.claimedRoutes.add(route);
             this.score += route.getPointValue();
             this.numPieces -= route.getLength();
-            this.graph.addStation(route.getOrigin());
-            this.graph.addStation(route.getDestination());
+            updateClaimableLengths();
             this.notifyObservers();
         }
     }
@@ -274,43 +254,62 @@ public class ComputerModel implements Player {
     }
 
     /**
-     * Notifies player observers of a change made to the player's state.
+     * Starts the player off on the map a game is played on, which may already have routes
+     * claimed, e.g. when a game is picked up again from its claim log. The player's claimed
+     * routes become the routes their baron owns on the map, and the score and pieces are worked
+     * out from those routes, so a recovered game carries on with every player as they were.
+     * @param map The {@link RailroadMap} the game is played on.
      */
-    public void notifyObservers() {
-        for (PlayerObserver o : observers) {
-            o.playerChanged(this);
+    public void startOn(RailroadMap map) {
+        this.map = map;
+        this.claimedRoutes = new ArrayList<>();
+        this.score = 0;
+        this.numPieces = 45;
+        for(Route route: map.getRoutes()) {
+            if(route.getBaron() == this.baron) {
+                this.claimedRoutes.add(route);
+                this.score += route.getPointValue();
+                this.numPieces -= route.getLength();
+            }
         }
+        updateClaimableLengths();
+        this.notifyObservers();
     }
 
     /**
-     * Used to choose the card that can be used to claim the route.
-     * @param routeLength the amount of cards needed to claim the route.
-     * @return the index of the card color in an array of card colors to choose.
+     * Moves the player onto a new version of the map. Each claimed route is replaced by its
+     * match on the new map, and a route that is no longer on the map is given up along with its
+     * points and pieces. The score and pieces follow the new lengths of the routes that are kept.
+     * @param map The new version of the {@link RailroadMap}.
+     * @param matches The {@link Route} on the new map for each route on the old map that is
+     *                still there.
      */
-    public int chooseCard(int routeLength) {
-        int i;
-        int[] cardNums = new int[9];
-
-        //iterate through the deck and count how many of each type of card the player has
-        for(i = 0; i < colors.length; i++) {
-            cardNums[i] = countCardsInHand(colors[i]);
-        }
-
-        //if the player has enough cards of one color, use that card color
-        //-1 is added to prevent using all wild cards
-        for(i = 0; i < colors.length - 1; i++) {
-            if(cardNums[i] >= routeLength) {
-                return i;
+    @Override
+    public void changeMap(RailroadMap map, Map<Route, Route> matches) {
+        this.map = map;
+        List<Route> kept = new ArrayList<>();
+        for(Route route: this.claimedRoutes) {
+            this.score -= route.getPointValue();
+            this.numPieces += route.getLength();
+            Route match = matches.get(route);
+            if(match != null) {
+                kept.add(match);
+                this.score += match.getPointValue();
+                this.numPieces -= match.getLength();
             }
         }
+        this.claimedRoutes = kept;
+        updateClaimableLengths();
+        this.notifyObservers();
+    }
 
-        //if the player has enough cards of one color plus one wild card, use that card color
-        for(i = 0; i < colors.length - 1; i++) {
-            if(cardNums[i] == routeLength - 1 && cardNums[8] >= 1 ) {
-                return i;
-            }
+    /**
+     * Notifies player observers of a change made to the player's state.
+     */
+    public void notifyObservers() {
+        for (PlayerObserver o : observers) {
+            o.playerChanged(this);
         }
-        return 0;
     }
 
     /**
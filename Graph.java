@@ -1,40 +1,145 @@
 package student;
 
-import model.Station;
-
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-
 /**
- * Class that would have been used for graph implementation, unfinished
+ * Graph of the stations on a map and the routes that connect them. The adjacency is stored
+ * in compressed sparse row form: the edges of station s are the entries from
+ * getFirstEdge(s) up to (but not including) getLastEdge(s), and each edge records the route
+ * it travels along and the station at its other end. Stations and routes are referred to by
+ * their ids, so walking the neighbors of a station does not create any objects.
  * @author Ben Donahue
  */
 public class Graph {
-    private Map<Station, List<Station>> neighbors;
+    private int stationCount;
+    private int[] origins;
+    private int[] destinations;
+    private int[] offsets;
+    private int[] edgeRoutes;
+    private int[] edgeStations;
+
+    /**
+     * Builds the graph for a map. Every route's stations must have ids between 0 and the
+     * number of stations. The graph only holds ids, so it can be shared by every game played
+     * on the map.
+     * @param stationCount the number of stations on the map
+     * @param origins the id of the origin station of each route
+     * @param destinations the id of the destination station of each route
+     */
+    public Graph(int stationCount, int[] origins, int[] destinations) {
+        int routeCount = origins.length;
+        this.stationCount = stationCount;
+        this.origins = origins;
+        this.destinations = destinations;
+        this.offsets = new int[stationCount + 1];
+        this.edgeRoutes = new int[routeCount * 2];
+        this.edgeStations = new int[routeCount * 2];
+
+        //count the edges of each station, then turn the counts into starting offsets
+        for(int route = 0; route < routeCount; route++) {
+            this.offsets[origins[route] + 1]++;
+            this.offsets[destinations[route] + 1]++;
+        }
+        for(int station = 0; station < stationCount; station++) {
+            this.offsets[station + 1] += this.offsets[station];
+        }
 
-    public Graph() {
-        this.neighbors = new HashMap<>();
+        //fill in each station's edges, using a copy of the offsets as the next free slot
+        int[] next = new int[stationCount];
+        System.arraycopy(this.offsets, 0, next, 0, stationCount);
+        for(int route = 0; route < routeCount; route++) {
+            addEdge(next, origins[route], destinations[route], route);
+            addEdge(next, destinations[route], origins[route], route);
+        }
     }
 
-    public void addStation(Station station) {
+    /**
+     * Accessor for the number of stations in the graph
+     * @return the number of stations
+     */
+    public int getStationCount() {
+        return this.stationCount;
     }
 
-    public List<Station> getVertex(Station station) {
-        for(Station node: this.neighbors.keySet()) {
-            if(node.equals(station)) {
-                return this.neighbors.get(node);
-            }
-        }
-        return null;
+    /**
+     * Accessor for the number of routes in the graph
+     * @return the number of routes
+     */
+    public int getRouteCount() {
+        return this.origins.length;
     }
 
-    public Map<Station, List<Station>> getVertices() {
-        return this.neighbors;
+    /**
+     * Accessor for the origin of a route
+     * @param route the id of the route
+     * @return the id of the station the route starts at
+     */
+    public int getOrigin(int route) {
+        return this.origins[route];
     }
 
-    public void connect(Station a, Station b) {
+    /**
+     * Accessor for the destination of a route
+     * @param route the id of the route
+     * @return the id of the station the route ends at
+     */
+    public int getDestination(int route) {
+        return this.destinations[route];
+    }
 
+    /**
+     * Accessor for the number of routes touching a station
+     * @param station the id of the station
+     * @return how many routes start or end at the station
+     */
+    public int getDegree(int station) {
+        return this.offsets[station + 1] - this.offsets[station];
     }
-}
 
+    /**
+     * Accessor for the first edge of a station
+     * @param station the id of the station
+     * @return the index of the station's first edge
+     */
+    public int getFirstEdge(int station) {
+        return this.offsets[station];
+    }
+
+    /**
+     * Accessor for the end of a station's edges
+     * @param station the id of the station
+     * @return the index one past the station's last edge
+     */
+    public int getLastEdge(int station) {
+        return this.offsets[station + 1];
+    }
+
+    /**
+     * Accessor for the route an edge travels along
+     * @param edge the index of the edge
+     * @return the id of the route
+     */
+    public int getEdgeRoute(int edge) {
+        return this.edgeRoutes[edge];
+    }
+
+    /**
+     * Accessor for the station at the far end of an edge
+     * @param edge the index of the edge
+     * @return the id of the neighboring station
+     */
+    public int getEdgeStation(int edge) {
+        return this.edgeStations[edge];
+    }
+
+    /**
+     * Places one direction of a route into the edge arrays.
+     * @param next the next free edge slot of each station
+     * @param from the station the edge leaves
+     * @param to the station the edge arrives at
+     * @param route the route the edge travels along
+     */
+    private void addEdge(int[] next, int from, int to, int route) {
+        int edge = next[from]++;
+        this.edgeRoutes[edge] = route;
+        this.edgeStations[edge] = to;
+    }
+}
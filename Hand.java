@@ -0,0 +1,108 @@
+package student;
+
+import model.Card;
+
+/**
+ * A player's hand of cards, kept as a count of how many of each kind of card the player holds
+ * rather than as a list of cards. Counting the cards of one color, adding a card and spending
+ * cards are all single array updates, so checking whether a route can be claimed does not
+ * have to look through the hand.
+ */
+public class Hand {
+    private static final Card[] CARDS = Card.values();
+    private static final Card[] COLORS = {Card.BLACK, Card.BLUE, Card.GREEN, Card.ORANGE, Card.PINK, Card.RED,
+            Card.WHITE, Card.YELLOW};
+    private static final int MAX_LENGTH = Long.SIZE - 1;
+
+    private int[] counts;
+    private int size;
+
+    /**
+     * Constructor for an empty hand.
+     */
+    public Hand() {
+        this.counts = new int[CARDS.length];
+        this.size = 0;
+    }
+
+    /**
+     * Empties the hand and fills it with the cards dealt.
+     * @param dealt the cards dealt to the player
+     */
+    public void reset(Card... dealt) {
+        for(int i = 0; i < this.counts.length; i++) {
+            this.counts[i] = 0;
+        }
+        this.size = 0;
+        for(Card card: dealt) {
+            add(card);
+        }
+    }
+
+    /**
+     * Adds a card to the hand. NONE is not a card, so it is never added.
+     * @param card the card to add
+     */
+    public void add(Card card) {
+        if(card != null && card != Card.NONE) {
+            this.counts[card.ordinal()]++;
+            this.size++;
+        }
+    }
+
+    /**
+     * Spends cards of one kind from the hand.
+     * @param card the kind of card to spend
+     * @param amount how many of the cards to spend
+     * @throws IllegalArgumentException if the hand does not hold that many of the card
+     */
+    public void remove(Card card, int amount) {
+        if(amount < 0 || this.counts[card.ordinal()] < amount) {
+            throw new IllegalArgumentException("Cannot spend " + amount + " " + card + " cards from a hand with "
+                    + this.counts[card.ordinal()]);
+        }
+        this.counts[card.ordinal()] -= amount;
+        this.size -= amount;
+    }
+
+    /**
+     * Counts the cards of one kind in the hand.
+     * @param card the kind of card
+     * @return the number of those cards in the hand
+     */
+    public int count(Card card) {
+        return this.counts[card.ordinal()];
+    }
+
+    /**
+     * Works out which lengths of route could be paid for with this hand. A route is paid for
+     * with cards of one color plus at most one wild card, and needs a piece for every track,
+     * so every length up to the most cards of one color (plus one if there is a wild card),
+     * but no more than the pieces left, can be claimed. That includes length 0: a route
+     * joining two stations next to each other has no track, costs nothing and can always be
+     * claimed.
+     * @param pieces the number of pieces the player has left
+     * @return a mask with bit n set if a route of length n can be claimed
+     */
+    public long getClaimableLengths(int pieces) {
+        int most = 0;
+        for(Card color: COLORS) {
+            most = Math.max(most, this.counts[color.ordinal()]);
+        }
+        int longest = Math.min(pieces, most + (this.counts[Card.WILD.ordinal()] > 0 ? 1 : 0));
+        longest = Math.min(longest, MAX_LENGTH);
+        long free = pieces >= 0 ? 1 : 0;
+        if(longest <= 0) {
+            return free;
+        }
+        return ((-1L >>> (Long.SIZE - longest)) << 1) | free;
+    }
+
+    /**
+     * Accessor for the number of cards in the hand
+     * @return the number of cards in the hand
+     */
+    public int size() {
+        return this.size;
+    }
+}
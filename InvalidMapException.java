@@ -0,0 +1,51 @@
+package student;
+
+import model.RailroadBaronsException;
+
+import java.util.List;
+
+/**
+ * Exception used when a map file has problems that stop it from being played. Every problem
+ * found in the file is kept, not just the first one.
+ */
+public class InvalidMapException extends RailroadBaronsException {
+    private static final long serialVersionUID = 1L;
+    private static final int MESSAGE_PROBLEMS = 50;
+
+    private List<String> problems;
+
+    /**
+     * Creates a new invalid map exception.
+     * @param problems a description of each problem with the map
+     */
+    public InvalidMapException(List<String> problems) {
+        super(message(problems));
+        this.problems = problems;
+    }
+
+    /**
+     * Accessor for the problems with the map
+     * @return a description of each problem with the map
+     */
+    public List<String> getProblems() {
+        return this.problems;
+    }
+
+    /**
+     * Builds the exception's message, listing the problems one to a line. Only the first few
+     * problems are listed in full, so the message stays short enough to show to a player.
+     * @param problems a description of each problem with the map
+     * @return the message
+     */
+    private static String message(List<String> problems) {
+        StringBuilder message = new StringBuilder("Invalid map file:");
+        for(int i = 0; i < Math.min(problems.size(), MESSAGE_PROBLEMS); i++) {
+            message.append(System.lineSeparator()).append(problems.get(i));
+        }
+        if(problems.size() > MESSAGE_PROBLEMS) {
+            message.append(System.lineSeparator()).append("and ")
+                    .append(problems.size() - MESSAGE_PROBLEMS).append(" more problems");
+        }
+        return message.toString();
+    }
+}
@@ -0,0 +1,266 @@
+package student;
+
+import model.Baron;
+
+/**
+ * Works out the longest continuous track each baron has claimed, measured in tracks, where a
+ * continuous track may pass through a station more than once but may not use a route twice.
+ * Finding the longest track is a search over the baron's routes, so the result for each
+ * connected piece of a baron's network is remembered, and a claim only causes the piece of
+ * the network containing the new route to be searched again. A baron's longest track can only
+ * grow as routes are claimed, so the longest of the searched pieces is kept as the answer.
+ *
+ * The search stops following a track as soon as the routes it has not used could not make it
+ * longer than the best track already found, and stops altogether once a track uses every
+ * route in the piece. Finding the longest track is still exponential in the number of routes
+ * in the worst case, so each search of a piece is also limited to {@link #MAX_STEPS} steps.
+ * A player only has 45 pieces, so in a real game the limit is rarely reached; if it is, the
+ * longest track found so far is kept and the piece is remembered as cut off, so that
+ * {@link #isExact(Baron)} can tell whether the answer may be shorter than the true longest
+ * track. The piece is searched again after a later claim touches it.
+ *
+ * The engine can also work out how long a baron's longest track would be with one more route,
+ * without claiming it, so that a computer player can weigh the routes it could claim. Those
+ * searches are limited to {@link #EVALUATION_STEPS} steps, since many routes are weighed.
+ */
+public class LongestTrack {
+    public static final int MAX_STEPS = 1 << 20;
+    public static final int EVALUATION_STEPS = 1 << 14;
+
+    private RailroadBaronsMapModel map;
+    private Graph graph;
+    private int[][] claimed;
+    private int[] claimedCount;
+    private int[][] changed;
+    private int[] changedCount;
+    private int[][] cutOff;
+    private int[] cutOffCount;
+    private int[] longest;
+    private boolean[] used;
+    private int[] searched;
+    private int search;
+    private int[] rootsSearched;
+    private int rootSearch;
+    private int best;
+    private int unusedLength;
+    private int componentLength;
+    private int steps;
+    private int candidate;
+
+    /**
+     * Constructor for the engine, starting from the routes already claimed on the map.
+     * @param map the map whose routes are followed
+     */
+    public LongestTrack(RailroadBaronsMapModel map) {
+        int barons = Baron.values().length;
+        this.map = map;
+        this.graph = map.getGraph();
+        this.claimed = new int[barons][];
+        this.claimedCount = new int[barons];
+        this.changed = new int[barons][];
+        this.changedCount = new int[barons];
+        this.cutOff = new int[barons][];
+        this.cutOffCount = new int[barons];
+        this.candidate = -1;
+        this.longest = new int[barons];
+        this.used = new boolean[graph.getRouteCount()];
+        this.searched = new int[graph.getStationCount()];
+        this.rootsSearched = new int[graph.getStationCount()];
+        for(int route = 0; route < this.graph.getRouteCount(); route++) {
+            if(map.getOwner(route) != Baron.UNCLAIMED) {
+                routeClaimed(map.getOwner(route), route);
+            }
+        }
+    }
+
+    /**
+     * Records a route claimed by a baron. The piece of the baron's network containing the
+     * route will be searched again the next time the baron's longest track is asked for.
+     * @param baron the baron who claimed the route
+     * @param route the id of the claimed route
+     */
+    public void routeClaimed(Baron baron, int route) {
+        int b = baron.ordinal();
+        this.claimed[b] = append(this.claimed[b], this.claimedCount[b]++, route);
+        this.changed[b] = append(this.changed[b], this.changedCount[b]++, route);
+    }
+
+    /**
+     * Accessor for the length of a baron's longest continuous track
+     * @param baron the baron
+     * @param network the baron's network of claimed routes
+     * @return the number of tracks in the baron's longest continuous track
+     */
+    public int getLongest(Baron baron, BaronNetwork network) {
+        int b = baron.ordinal();
+        if(this.changedCount[b] > 0) {
+            //the changed routes are replaced by the pieces they are in, each piece once
+            this.rootSearch++;
+            int roots = 0;
+            for(int i = 0; i < this.changedCount[b]; i++) {
+                int root = network.find(this.graph.getOrigin(this.changed[b][i]));
+                if(this.rootsSearched[root] != this.rootSearch) {
+                    this.rootsSearched[root] = this.rootSearch;
+                    this.changed[b][roots++] = root;
+                }
+            }
+
+            //a piece that was cut off stays cut off unless it is about to be searched again
+            int kept = 0;
+            for(int i = 0; i < this.cutOffCount[b]; i++) {
+                int station = this.cutOff[b][i];
+                if(this.rootsSearched[network.find(station)] != this.rootSearch) {
+                    this.cutOff[b][kept++] = station;
+                }
+            }
+            this.cutOffCount[b] = kept;
+
+            for(int i = 0; i < roots; i++) {
+                int root = this.changed[b][i];
+                this.longest[b] = Math.max(this.longest[b], searchComponent(baron, network, root, root, MAX_STEPS));
+                if(this.best < this.componentLength && this.steps <= 0) {
+                    this.cutOff[b] = append(this.cutOff[b], this.cutOffCount[b]++, root);
+                }
+            }
+            this.changedCount[b] = 0;
+        }
+        return this.longest[b];
+    }
+
+    /**
+     * Tells whether a baron's longest track, as last returned by
+     * {@link #getLongest(Baron, BaronNetwork)}, is known to be the true longest track. It is
+     * not if the search of some piece of the baron's network ran out of steps, in which case
+     * the true longest track may be longer.
+     * @param baron the baron
+     * @return true if no piece of the baron's network was cut off
+     */
+    public boolean isExact(Baron baron) {
+        return this.cutOffCount[baron.ordinal()] == 0;
+    }
+
+    /**
+     * Works out how long a baron's longest continuous track would be if they also had a route
+     * they have not claimed, without claiming it. Only the pieces of the baron's network the
+     * route would join are searched, and the search is cut off after {@link #EVALUATION_STEPS}
+     * steps, so on a densely claimed network the answer may be too short.
+     * @param baron the baron
+     * @param network the baron's network of claimed routes
+     * @param route the id of the route to try
+     * @return the number of tracks in the longest continuous track with the route
+     */
+    public int getLongestWith(Baron baron, BaronNetwork network, int route) {
+        int longest = getLongest(baron, network);
+        int first = network.find(this.graph.getOrigin(route));
+        int second = network.find(this.graph.getDestination(route));
+        this.candidate = route;
+        int found = searchComponent(baron, network, first, second, EVALUATION_STEPS);
+        this.candidate = -1;
+        return Math.max(longest, found);
+    }
+
+    /**
+     * Finds the longest continuous track in the pieces of a baron's network with the given
+     * representative stations, along with the candidate route if there is one, by trying every
+     * station in them as a starting point.
+     * @param baron the baron
+     * @param network the baron's network of claimed routes
+     * @param first the representative station of a piece to search
+     * @param second the representative station of another piece to search, or first again
+     * @param steps the number of steps the search may take
+     * @return the number of tracks in the longest continuous track found
+     */
+    private int searchComponent(Baron baron, BaronNetwork network, int first, int second, int steps) {
+        int b = baron.ordinal();
+        this.componentLength = this.candidate < 0 ? 0 : this.map.getTopology().getLength(this.candidate);
+        for(int i = 0; i < this.claimedCount[b]; i++) {
+            int route = this.claimed[b][i];
+            int root = network.find(this.graph.getOrigin(route));
+            if(root == first || root == second) {
+                this.componentLength += this.map.getTopology().getLength(route);
+            }
+        }
+
+        this.best = 0;
+        this.unusedLength = this.componentLength;
+        this.steps = steps;
+        this.search++;
+        if(this.candidate >= 0) {
+            start(baron, this.graph.getOrigin(this.candidate));
+            start(baron, this.graph.getDestination(this.candidate));
+        }
+        for(int i = 0; i < this.claimedCount[b] && this.best < this.componentLength && this.steps > 0; i++) {
+            int route = this.claimed[b][i];
+            int origin = this.graph.getOrigin(route);
+            int root = network.find(origin);
+            if(root == first || root == second) {
+                start(baron, origin);
+                start(baron, this.graph.getDestination(route));
+            }
+        }
+        return this.best;
+    }
+
+    /**
+     * Searches for tracks starting at a station, unless the station has already been tried
+     * in this search or the search is finished.
+     * @param baron the baron
+     * @param station the id of the station to start from
+     */
+    private void start(Baron baron, int station) {
+        if(this.searched[station] != this.search && this.best < this.componentLength && this.steps > 0) {
+            this.searched[station] = this.search;
+            extend(baron, station, 0);
+        }
+    }
+
+    /**
+     * Follows every way of continuing a track from a station along the baron's routes that
+     * are not already part of the track, keeping the longest track found in best. A track is
+     * not followed any further once the routes it has not used could not make it longer than
+     * best, or once the search has run out of steps.
+     * @param baron the baron
+     * @param station the id of the station the track has reached
+     * @param length the number of tracks in the track so far
+     */
+    private void extend(Baron baron, int station, int length) {
+        this.best = Math.max(this.best, length);
+        if(length + this.unusedLength <= this.best || --this.steps <= 0) {
+            return;
+        }
+        for(int edge = this.graph.getFirstEdge(station); edge < this.graph.getLastEdge(station); edge++) {
+            int route = this.graph.getEdgeRoute(edge);
+            if(!this.used[route] && (route == this.candidate || this.map.getOwner(route) == baron)) {
+                int routeLength = this.map.getTopology().getLength(route);
+                this.used[route] = true;
+                this.unusedLength -= routeLength;
+                extend(baron, this.graph.getEdgeStation(edge), length + routeLength);
+                this.unusedLength += routeLength;
+                this.used[route] = false;
+                if(this.best == this.componentLength || this.steps <= 0) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a route or station id to the end of a list, making the list bigger if it is full.
+     * @param list the list of ids
+     * @param size the number of ids in the list
+     * @param route the id to add
+     * @return the list with the id added
+     */
+    private static int[] append(int[] list, int size, int route) {
+        if(list == null) {
+            list = new int[8];
+        }
+        else if(size == list.length) {
+            int[] bigger = new int[size * 2];
+            System.arraycopy(list, 0, bigger, 0, size);
+            list = bigger;
+        }
+        list[size] = route;
+        return list;
+    }
+}
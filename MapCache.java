@@ -0,0 +1,154 @@
+package view;
+
+import model.MapMaker;
+import model.RailroadBaronsException;
+import model.RailroadMap;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cache of the {@linkplain RailroadMap maps} that games have been started
+ * on, so that starting another game on the same map does not read and parse
+ * the map file again. Maps are keyed by a hash of the contents of their file,
+ * so the same map saved under two names is only parsed once, and a file that
+ * has been edited is parsed again. The least recently used map is dropped
+ * once the cache is full.
+ *
+ * A map file is read once, and the bytes that were read are both hashed and
+ * parsed, so a file that changes while it is being loaded (e.g. because an
+ * editor is still saving it) can never be cached under the hash of a
+ * different version of the file. Files too big to hold in memory are parsed
+ * straight from the file and not cached.
+ *
+ * The cached maps are never played on. Every game gets its own
+ * {@linkplain MapMaker#copyMap(RailroadMap) copy}, which shares the parts of
+ * the map that never change and has its own record of claimed routes.
+ *
+ * Maps may be loaded from a background thread, so the cache is synchronized.
+ * Reading, hashing and parsing a file all happen outside the lock, so a map
+ * loading in the background never holds up a map loaded on the JavaFX
+ * application thread.
+ */
+class MapCache {
+    /**
+     * The largest map file that is read into memory to be hashed and parsed.
+     */
+    private static final long MAX_CACHED_SIZE = Integer.MAX_VALUE - 8;
+
+    /**
+     * The parsed maps, keyed by the hash of their file's contents, in least
+     * to most recently used order.
+     */
+    private final Map<ByteBuffer, RailroadMap> maps;
+
+    /**
+     * Creates a new, empty map cache.
+     *
+     * @param capacity The largest number of maps kept in the cache.
+     */
+    MapCache(int capacity) {
+        maps = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<ByteBuffer, RailroadMap> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns a new {@linkplain RailroadMap map} for a game on the map in the
+     * specified file. The file is only parsed if a map with the same contents
+     * is not already in the cache.
+     *
+     * @param mapMaker The {@link MapMaker} used to read and copy the map.
+     * @param path The path to the map file.
+     * @return A new {@link RailroadMap} read from the file.
+     *
+     * @throws RailroadBaronsException If the file cannot be read or is not a
+     * valid map.
+     */
+    RailroadMap load(MapMaker mapMaker, Path path)
+            throws RailroadBaronsException {
+        return mapMaker.copyMap(template(mapMaker, path));
+    }
+
+    /**
+     * Returns the cached {@linkplain RailroadMap map} for the specified file.
+     * The file is read and hashed every time, and the bytes that were read
+     * are only parsed if a map with the same contents is not already in the
+     * cache. If two threads parse the same contents at once, the map cached
+     * first is kept. The map that is returned must not be played on; use
+     * {@link MapMaker#copyMap(RailroadMap)} to get a map for a new game.
+     *
+     * @param mapMaker The {@link MapMaker} used to read the map.
+     * @param path The path to the map file.
+     * @return The cached {@link RailroadMap} for the file.
+     *
+     * @throws RailroadBaronsException If the file cannot be read or is not a
+     * valid map.
+     */
+    RailroadMap template(MapMaker mapMaker, Path path)
+            throws RailroadBaronsException {
+        byte[] contents;
+        try {
+            if(Files.size(path) > MAX_CACHED_SIZE) {
+                return mapMaker.readMap(path);
+            }
+            contents = Files.readAllBytes(path);
+        }
+        catch(IOException ioe) {
+            throw new RailroadBaronsException("Failed to load map: " +
+                    ioe.getMessage());
+        }
+
+        ByteBuffer hash = digest(contents);
+        synchronized(this) {
+            RailroadMap map = maps.get(hash);
+            if(map != null) {
+                return map;
+            }
+        }
+        RailroadMap map = mapMaker.readMap(
+                new ByteArrayInputStream(contents));
+        synchronized(this) {
+            RailroadMap cached = maps.putIfAbsent(hash, map);
+            return cached != null ? cached : map;
+        }
+    }
+
+    /**
+     * Empties the cache, e.g. because the {@link MapMaker} has changed.
+     */
+    synchronized void clear() {
+        maps.clear();
+    }
+
+    /**
+     * Hashes the contents of a map file.
+     *
+     * @param contents The contents of the file.
+     * @return The SHA-256 hash of the contents.
+     *
+     * @throws RailroadBaronsException If SHA-256 is not available.
+     */
+    private static ByteBuffer digest(byte[] contents)
+            throws RailroadBaronsException {
+        try {
+            return ByteBuffer.wrap(
+                    MessageDigest.getInstance("SHA-256").digest(contents));
+        }
+        catch(NoSuchAlgorithmException nsae) {
+            throw new RailroadBaronsException("Failed to load map: " +
+                    nsae.getMessage());
+        }
+    }
+}
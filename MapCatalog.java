@@ -0,0 +1,401 @@
+package student;
+
+import model.MapInfo;
+import model.RailroadBaronsException;
+import model.RailroadMap;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * An index of the maps in a directory, kept in one small file in that directory, so that maps
+ * can be listed and chosen by their size and routes without being read. For every map the
+ * catalog records the size of the map, the number of stations and routes, how many routes
+ * there are of each length, a hash of the file and when it was last changed.
+ *
+ * Updating the catalog reads every map file in parallel, but only to hash it: a map whose hash
+ * matches its entry keeps the entry, and only maps that are new or whose contents have changed
+ * are parsed. The hash recorded for a map is always taken from the same bytes that were parsed.
+ */
+public class MapCatalog {
+    public static final String INDEX_FILE = "maps.rbcatalog";
+
+    private static final int MAGIC = 0x52424358;
+    private static final int VERSION = 1;
+    private static final int MAX_PROBLEM = 4096;
+    private static final String[] MAP_EXTENSIONS = {MapMakerModel.MAP_EXTENSION,
+            MapMakerModel.MAP_EXTENSION + ".gz", MapMakerModel.COMPILED_EXTENSION};
+
+    private Path directory;
+    private List<Entry> entries;
+
+    /**
+     * Constructor for the catalog of a directory. The index file is read if there is one, but
+     * the directory is not looked at until the catalog is updated.
+     * @param directory the directory holding the maps
+     * @throws RailroadBaronsException if there is an index file that cannot be read
+     */
+    public MapCatalog(Path directory) throws RailroadBaronsException {
+        this.directory = directory;
+        this.entries = Collections.emptyList();
+        if(Files.exists(directory.resolve(INDEX_FILE))) {
+            read();
+        }
+    }
+
+    /**
+     * Accessor for the maps in the catalog
+     * @return an entry for each map, in file name order
+     */
+    public List<Entry> getEntries() {
+        return this.entries;
+    }
+
+    /**
+     * Brings the catalog up to date with the directory and saves the index file. Maps that
+     * have not changed since the catalog was last updated keep their entries, maps that are
+     * new or have changed are read, and maps that are gone are dropped.
+     * @throws RailroadBaronsException if the directory cannot be listed or the index cannot
+     * be saved
+     */
+    public void update() throws RailroadBaronsException {
+        Map<String, Entry> previous = new HashMap<>();
+        for(Entry entry: this.entries) {
+            previous.put(entry.name, entry);
+        }
+
+        List<Path> files = new ArrayList<>();
+        try(DirectoryStream<Path> listing = Files.newDirectoryStream(this.directory,
+                file -> isMap(file.getFileName().toString()) && Files.isRegularFile(file))) {
+            for(Path file: listing) {
+                files.add(file);
+            }
+        }
+        catch (IOException ioe) {
+            throw new RailroadBaronsException("Failed to list maps: " + ioe.getMessage());
+        }
+        Collections.sort(files);
+
+        this.entries = Collections.unmodifiableList(files.parallelStream()
+                .map(file -> catalog(file, previous.get(file.getFileName().toString())))
+                .collect(Collectors.toList()));
+        write();
+    }
+
+    /**
+     * Makes the entry for a map file, reusing the previous entry if the file's contents have
+     * not changed. The file is hashed to find out, whatever its size and modification time say.
+     * A new or changed file is parsed through the digest, so its hash and its entry come from
+     * the same bytes.
+     * @param file the map file
+     * @param previous the file's entry from the last update, or null if it had none
+     * @return the file's entry
+     */
+    private static Entry catalog(Path file, Entry previous) {
+        Entry entry = new Entry();
+        entry.name = file.getFileName().toString();
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            entry.size = attributes.size();
+            entry.modified = attributes.lastModifiedTime().toMillis();
+            if(previous != null && Arrays.equals(previous.hash, hash(file))) {
+                previous.size = entry.size;
+                previous.modified = entry.modified;
+                return previous;
+            }
+
+            try(DigestInputStream in = new DigestInputStream(Files.newInputStream(file), digest())) {
+                try {
+                    RailroadMap map = new MapMakerModel().readMap(in);
+                    MapTopology topology = ((RailroadBaronsMapModel)map).getTopology();
+                    entry.rows = topology.getRows();
+                    entry.cols = topology.getCols();
+                    entry.stations = topology.getStationCount();
+                    entry.routes = topology.getRouteCount();
+                    entry.lengths = new int[topology.getLongestRoute() + 1];
+                    for(int i = 0; i < topology.getRouteCount(); i++) {
+                        entry.lengths[topology.getLength(i)]++;
+                    }
+                }
+                catch (RailroadBaronsException rbe) {
+                    String problem = String.valueOf(rbe.getMessage());
+                    entry.problem = problem.length() > MAX_PROBLEM ? problem.substring(0, MAX_PROBLEM) : problem;
+                }
+                //the parser may stop before the end of the file, but the hash covers all of it
+                in.transferTo(OutputStream.nullOutputStream());
+                entry.hash = in.getMessageDigest().digest();
+            }
+        }
+        catch (IOException ioe) {
+            entry.problem = "Failed to read map: " + ioe.getMessage();
+        }
+        return entry;
+    }
+
+    /**
+     * Hashes the contents of a file.
+     * @param file the file to hash
+     * @return the SHA-256 hash of the file's contents
+     * @throws IOException if the file cannot be read
+     */
+    private static byte[] hash(Path file) throws IOException {
+        MessageDigest digest = digest();
+        try(InputStream in = Files.newInputStream(file)) {
+            byte[] buffer = new byte[1 << 16];
+            int read;
+            while((read = in.read(buffer)) >= 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return digest.digest();
+    }
+
+    /**
+     * Makes a digest for hashing map files.
+     * @return a new SHA-256 digest
+     * @throws IOException if SHA-256 is not available
+     */
+    private static MessageDigest digest() throws IOException {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException nsae) {
+            throw new IOException(nsae.getMessage());
+        }
+    }
+
+    /**
+     * Checks whether a file name is one of the kinds of map file.
+     * @param name the file name
+     * @return true if the file is a map file
+     */
+    private static boolean isMap(String name) {
+        for(String extension: MAP_EXTENSIONS) {
+            if(name.endsWith(extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads the index file.
+     * @throws RailroadBaronsException if the index file cannot be read or is damaged
+     */
+    private void read() throws RailroadBaronsException {
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Files.newInputStream(this.directory.resolve(INDEX_FILE))))) {
+            if(in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new RailroadBaronsException("Not a map catalog: " + this.directory.resolve(INDEX_FILE));
+            }
+            int count = in.readInt();
+            List<Entry> entries = new ArrayList<>(count);
+            for(int i = 0; i < count; i++) {
+                Entry entry = new Entry();
+                entry.name = in.readUTF();
+                entry.size = in.readLong();
+                entry.modified = in.readLong();
+                entry.hash = new byte[in.readUnsignedByte()];
+                in.readFully(entry.hash);
+                entry.rows = in.readInt();
+                entry.cols = in.readInt();
+                entry.stations = in.readInt();
+                entry.routes = in.readInt();
+                entry.lengths = new int[in.readInt()];
+                for(int length = 0; length < entry.lengths.length; length++) {
+                    entry.lengths[length] = in.readInt();
+                }
+                entry.problem = in.readBoolean() ? in.readUTF() : null;
+                entries.add(entry);
+            }
+            this.entries = Collections.unmodifiableList(entries);
+        }
+        catch (IOException ioe) {
+            throw new RailroadBaronsException("Failed to read map catalog: " + ioe.getMessage());
+        }
+    }
+
+    /**
+     * Saves the index file. The index is written to a temporary file and then moved into
+     * place, so a damaged index is never left behind.
+     * @throws RailroadBaronsException if the index file cannot be written
+     */
+    private void write() throws RailroadBaronsException {
+        Path index = this.directory.resolve(INDEX_FILE);
+        Path temporary = this.directory.resolve(INDEX_FILE + ".tmp");
+        try {
+            try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(temporary)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(this.entries.size());
+                for(Entry entry: this.entries) {
+                    out.writeUTF(entry.name);
+                    out.writeLong(entry.size);
+                    out.writeLong(entry.modified);
+                    out.writeByte(entry.hash.length);
+                    out.write(entry.hash);
+                    out.writeInt(entry.rows);
+                    out.writeInt(entry.cols);
+                    out.writeInt(entry.stations);
+                    out.writeInt(entry.routes);
+                    out.writeInt(entry.lengths.length);
+                    for(int count: entry.lengths) {
+                        out.writeInt(count);
+                    }
+                    out.writeBoolean(entry.problem != null);
+                    if(entry.problem != null) {
+                        out.writeUTF(entry.problem);
+                    }
+                }
+            }
+            Files.move(temporary, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException ioe) {
+            throw new RailroadBaronsException("Failed to write map catalog: " + ioe.getMessage());
+        }
+    }
+
+    /**
+     * What the catalog knows about one map file.
+     */
+    public static class Entry implements MapInfo {
+        private String name;
+        private long size;
+        private long modified;
+        private byte[] hash = new byte[0];
+        private int rows;
+        private int cols;
+        private int stations;
+        private int routes;
+        private int[] lengths = new int[0];
+        private String problem;
+
+        /**
+         * Accessor for the name of the map file
+         * @return the file name, without the directory
+         */
+        @Override
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * Accessor for the size of the map file
+         * @return the number of bytes in the file
+         */
+        @Override
+        public long getSize() {
+            return this.size;
+        }
+
+        /**
+         * Accessor for when the map file was last changed
+         * @return the modification time in milliseconds since the epoch
+         */
+        public long getModified() {
+            return this.modified;
+        }
+
+        /**
+         * Accessor for the hash of the map file
+         * @return the SHA-256 hash of the file's contents
+         */
+        public byte[] getHash() {
+            return this.hash.clone();
+        }
+
+        /**
+         * Accessor for the number of rows in the map
+         * @return the number of rows
+         */
+        @Override
+        public int getRows() {
+            return this.rows;
+        }
+
+        /**
+         * Accessor for the number of columns in the map
+         * @return the number of columns
+         */
+        @Override
+        public int getCols() {
+            return this.cols;
+        }
+
+        /**
+         * Accessor for the number of stations in the map
+         * @return the number of stations
+         */
+        @Override
+        public int getStationCount() {
+            return this.stations;
+        }
+
+        /**
+         * Accessor for the number of routes in the map
+         * @return the number of routes
+         */
+        @Override
+        public int getRouteCount() {
+            return this.routes;
+        }
+
+        /**
+         * Accessor for the length of the longest route in the map
+         * @return the number of tracks in the longest route
+         */
+        @Override
+        public int getLongestRoute() {
+            return Math.max(this.lengths.length - 1, 0);
+        }
+
+        /**
+         * Accessor for the number of routes of a given length
+         * @param length the number of tracks
+         * @return the number of routes with that many tracks
+         */
+        @Override
+        public int getRouteCount(int length) {
+            return length >= 0 && length < this.lengths.length ? this.lengths[length] : 0;
+        }
+
+        /**
+         * Checks whether the map could be read
+         * @return true if the map is valid and can be played
+         */
+        @Override
+        public boolean isValid() {
+            return this.problem == null;
+        }
+
+        /**
+         * Accessor for what is wrong with the map
+         * @return why the map could not be read, or null if it is valid
+         */
+        @Override
+        public String getProblem() {
+            return this.problem;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package view;
+
+import javafx.beans.binding.Bindings;
+import javafx.collections.FXCollections;
+import javafx.collections.transformation.FilteredList;
+import javafx.scene.Node;
+import javafx.scene.control.ButtonType;
+import javafx.scene.control.Dialog;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.TextField;
+import javafx.scene.layout.VBox;
+import model.MapInfo;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A {@link Dialog} that lists the maps in a directory, as described by the
+ * {@linkplain MapInfo catalog} of the directory, and lets the user choose
+ * one to play. Each map is shown with its size and the number of its
+ * stations and routes, none of which needs the map file to be read, and the
+ * list can be filtered by the name of the map file. Maps that could not be
+ * read are listed with the reason, but cannot be chosen.
+ */
+class MapChooserDialog extends Dialog<MapInfo> {
+
+    /**
+     * Creates a new dialog listing the given maps.
+     *
+     * @param maps A {@link MapInfo} for each map that may be chosen.
+     */
+    MapChooserDialog(List<MapInfo> maps) {
+        setTitle("Choose a Map");
+        setHeaderText(maps.size() + " maps");
+
+        FilteredList<MapInfo> shown =
+                new FilteredList<>(FXCollections.observableArrayList(maps));
+        TextField filter = new TextField();
+        filter.setPromptText("Filter by name");
+        filter.textProperty().addListener((observable, was, is) -> {
+            String text = is.toLowerCase(Locale.ROOT);
+            shown.setPredicate(map ->
+                    map.getName().toLowerCase(Locale.ROOT).contains(text));
+        });
+
+        ListView<MapInfo> list = new ListView<>(shown);
+        list.setCellFactory(view -> new ListCell<MapInfo>() {
+            @Override
+            protected void updateItem(MapInfo map, boolean empty) {
+                super.updateItem(map, empty);
+                setText(empty || map == null ? null : describe(map));
+            }
+        });
+        list.setPrefSize(560, 400);
+
+        getDialogPane().setContent(new VBox(10, filter, list));
+        getDialogPane().getButtonTypes().addAll(ButtonType.OK,
+                ButtonType.CANCEL);
+        Node ok = getDialogPane().lookupButton(ButtonType.OK);
+        ok.disableProperty().bind(Bindings.createBooleanBinding(() -> {
+            MapInfo selected = list.getSelectionModel().getSelectedItem();
+            return selected == null || !selected.isValid();
+        }, list.getSelectionModel().selectedItemProperty()));
+
+        setResultConverter(button -> button == ButtonType.OK ?
+                list.getSelectionModel().getSelectedItem() : null);
+    }
+
+    /**
+     * Describes a map in one line, e.g. "usa.rbmap: 40 x 60, 36 stations,
+     * 86 routes up to 6 long".
+     *
+     * @param map The {@link MapInfo} for the map.
+     * @return The description of the map.
+     */
+    private static String describe(MapInfo map) {
+        if(!map.isValid()) {
+            String problem = String.valueOf(map.getProblem());
+            int end = problem.indexOf('\n');
+            return map.getName() + ": cannot be played, " +
+                    (end < 0 ? problem : problem.substring(0, end));
+        }
+        return map.getName() + ": " + map.getRows() + " x " + map.getCols() +
+                ", " + map.getStationCount() + " stations, " +
+                map.getRouteCount() + " routes up to " +
+                map.getLongestRoute() + " long";
+    }
+}
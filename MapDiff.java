@@ -0,0 +1,258 @@
+package view;
+
+import model.Baron;
+import model.RailroadMap;
+import model.Route;
+import model.Space;
+import model.Station;
+import model.Track;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The differences between two versions of a {@linkplain RailroadMap map},
+ * e.g. before and after a map file has been edited. {@linkplain Route Routes}
+ * are matched by the {@linkplain Station#getNumber() numbers} of the stations
+ * at either end, so a route is still matched when one of its stations is
+ * moved or renamed, and the two maps do not need to share any objects.
+ * Stations without numbers are matched by their locations instead. When
+ * several routes join the same two stations, they are matched in the order
+ * they appear in each map. Stations are compared through the routes that end
+ * at them: a station is changed if a route to it was added or removed, or if
+ * it has been renamed or moved. A station with no routes at all is not part
+ * of the diff.
+ */
+class MapDiff {
+    /**
+     * The routes in the old map that are not in the new map.
+     */
+    private final List<Route> removedRoutes;
+
+    /**
+     * The routes in the new map that were not in the old map.
+     */
+    private final List<Route> addedRoutes;
+
+    /**
+     * The routes in the old map that are also in the new map.
+     */
+    private final List<Route> keptRoutes;
+
+    /**
+     * The routes in the new map that match the routes in
+     * {@link #keptRoutes}, in the same order.
+     */
+    private final List<Route> matchingRoutes;
+
+    /**
+     * The routes in the old map whose stations have been moved, followed by
+     * their matches in the new map.
+     */
+    private final List<Route> movedRoutes;
+
+    /**
+     * The stations in the new map that have been renamed.
+     */
+    private final List<Station> renamedStations;
+
+    /**
+     * Finds the differences between two versions of a map.
+     *
+     * @param oldMap The map before it was changed.
+     * @param newMap The map after it was changed.
+     */
+    MapDiff(RailroadMap oldMap, RailroadMap newMap) {
+        removedRoutes = new ArrayList<>();
+        keptRoutes = new ArrayList<>();
+        matchingRoutes = new ArrayList<>();
+        movedRoutes = new ArrayList<>();
+        renamedStations = new ArrayList<>();
+
+        Map<RouteKey, Route> newRoutes =
+                new HashMap<>(newMap.getRoutes().size() * 2);
+        for(Route route : newMap.getRoutes()) {
+            RouteKey key = new RouteKey(route, 0);
+            while(newRoutes.containsKey(key)) {
+                key = new RouteKey(route, key.index + 1);
+            }
+            newRoutes.put(key, route);
+        }
+        Set<RouteKey> oldRoutes = new HashSet<>(oldMap.getRoutes().size() * 2);
+        for(Route route : oldMap.getRoutes()) {
+            RouteKey key = new RouteKey(route, 0);
+            while(!oldRoutes.add(key)) {
+                key = new RouteKey(route, key.index + 1);
+            }
+            Route match = newRoutes.remove(key);
+            if(match == null) {
+                removedRoutes.add(route);
+                continue;
+            }
+            keptRoutes.add(route);
+            matchingRoutes.add(match);
+            if(!route.getOrigin().collocated(match.getOrigin()) ||
+                    !route.getDestination().collocated(
+                            match.getDestination())) {
+                movedRoutes.add(route);
+                movedRoutes.add(match);
+            }
+            if(!route.getOrigin().getName().equals(
+                    match.getOrigin().getName())) {
+                renamedStations.add(match.getOrigin());
+            }
+            if(!route.getDestination().getName().equals(
+                    match.getDestination().getName())) {
+                renamedStations.add(match.getDestination());
+            }
+        }
+        addedRoutes = new ArrayList<>(newRoutes.values());
+    }
+
+    /**
+     * Checks whether the two maps are the same.
+     *
+     * @return True if no routes were added or removed and no stations were
+     * moved or renamed.
+     */
+    boolean isEmpty() {
+        return removedRoutes.isEmpty() && addedRoutes.isEmpty() &&
+                movedRoutes.isEmpty() && renamedStations.isEmpty();
+    }
+
+    /**
+     * Returns the number of routes added to the map.
+     *
+     * @return The number of routes in the new map that were not in the old.
+     */
+    int getAddedRouteCount() {
+        return addedRoutes.size();
+    }
+
+    /**
+     * Returns the number of routes removed from the map.
+     *
+     * @return The number of routes in the old map that are not in the new.
+     */
+    int getRemovedRouteCount() {
+        return removedRoutes.size();
+    }
+
+    /**
+     * Claims every route in the new map that was claimed in the old map, so
+     * that editing a map does not lose the game's claims.
+     */
+    void carryOverOwners() {
+        for(int i = 0; i < keptRoutes.size(); i++) {
+            Baron owner = keptRoutes.get(i).getBaron();
+            if(owner != Baron.UNCLAIMED) {
+                matchingRoutes.get(i).claim(owner);
+            }
+        }
+    }
+
+    /**
+     * Returns the route in the new map that matches each route in the old
+     * map that is still there, so that anything holding routes from the old
+     * map can move onto the new one.
+     *
+     * @return The matching route in the new map for each kept route in the
+     * old map.
+     */
+    Map<Route, Route> getMatches() {
+        Map<Route, Route> matches = new HashMap<>(keptRoutes.size() * 2);
+        for(int i = 0; i < keptRoutes.size(); i++) {
+            matches.put(keptRoutes.get(i), matchingRoutes.get(i));
+        }
+        return matches;
+    }
+
+    /**
+     * Returns the {@linkplain Space spaces} whose contents may have changed:
+     * the tracks and stations at either end of every added, removed or moved
+     * route, and every renamed station.
+     *
+     * @return The changed spaces, from either map.
+     */
+    List<Space> getChangedSpaces() {
+        List<Space> spaces = new ArrayList<>(renamedStations);
+        for(Route route : removedRoutes) {
+            addRoute(route, spaces);
+        }
+        for(Route route : movedRoutes) {
+            addRoute(route, spaces);
+        }
+        for(Route route : addedRoutes) {
+            addRoute(route, spaces);
+        }
+        return spaces;
+    }
+
+    /**
+     * Adds the stations and tracks of a route to a list of spaces.
+     *
+     * @param route The route.
+     * @param spaces The list of spaces.
+     */
+    private static void addRoute(Route route, List<Space> spaces) {
+        spaces.add(route.getOrigin());
+        spaces.add(route.getDestination());
+        spaces.addAll(route.getTracks());
+    }
+
+    /**
+     * Identifies a route by the stations at either end, and by how many
+     * routes between the same two stations come before it in its map. Moving
+     * a station can swap which end of a route is the origin, so the ends are
+     * kept in order of their identities rather than as origin and
+     * destination.
+     */
+    private static class RouteKey {
+        private final long first;
+        private final long second;
+        private final int index;
+
+        private RouteKey(Route route, int index) {
+            long origin = station(route.getOrigin());
+            long destination = station(route.getDestination());
+            first = Math.min(origin, destination);
+            second = Math.max(origin, destination);
+            this.index = index;
+        }
+
+        /**
+         * Identifies a station by its number, or by its location if it has
+         * no number. Numbers are never negative, so the two cannot clash.
+         */
+        private static long station(Station station) {
+            if(station.getNumber() >= 0) {
+                return station.getNumber();
+            }
+            return -1 - (((long)station.getRow() << 32) |
+                    (station.getCol() & 0xFFFFFFFFL));
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if(!(other instanceof RouteKey)) {
+                return false;
+            }
+            RouteKey key = (RouteKey)other;
+            return first == key.first && second == key.second &&
+                    index == key.index;
+        }
+
+        @Override
+        public int hashCode() {
+            // grid maps have many routes with similar ends, so the fields are
+            // mixed rather than combined with a small multiplier
+            long hash = (first * 0x9E3779B97F4A7C15L) ^ second;
+            hash = (hash + index) * 0x9E3779B97F4A7C15L;
+            return (int)(hash ^ (hash >>> 32));
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package model;
+
+/**
+ * Interface for what is known about a map file without reading it as a
+ * {@linkplain RailroadMap map}, so that maps can be listed, filtered and
+ * chosen by their size and {@linkplain Route routes}.
+ */
+public interface MapInfo {
+    /**
+     * Returns the name of the map file.
+     *
+     * @return The file name, without the directory.
+     */
+    String getName();
+
+    /**
+     * Returns the size of the map file.
+     *
+     * @return The number of bytes in the file.
+     */
+    long getSize();
+
+    /**
+     * Returns the number of rows in the map.
+     *
+     * @return The number of rows.
+     */
+    int getRows();
+
+    /**
+     * Returns the number of columns in the map.
+     *
+     * @return The number of columns.
+     */
+    int getCols();
+
+    /**
+     * Returns the number of {@linkplain Station stations} in the map.
+     *
+     * @return The number of stations.
+     */
+    int getStationCount();
+
+    /**
+     * Returns the number of {@linkplain Route routes} in the map.
+     *
+     * @return The number of routes.
+     */
+    int getRouteCount();
+
+    /**
+     * Returns the length of the longest {@linkplain Route route} in the map.
+     *
+     * @return The number of tracks in the longest route.
+     */
+    int getLongestRoute();
+
+    /**
+     * Returns the number of {@linkplain Route routes} of the given length.
+     *
+     * @param length The number of tracks.
+     * @return The number of routes with that many tracks.
+     */
+    int getRouteCount(int length);
+
+    /**
+     * Checks whether the map file could be read as a map.
+     *
+     * @return True if the map is valid and can be played.
+     */
+    boolean isValid();
+
+    /**
+     * Returns what is wrong with the map file.
+     *
+     * @return Why the map could not be read, or null if it is valid.
+     */
+    String getProblem();
+}
@@ -0,0 +1,139 @@
+package view;
+
+import javafx.concurrent.Task;
+import model.MapMaker;
+import model.RailroadMap;
+
+import java.nio.file.Path;
+
+/**
+ * A {@link Task} that loads a {@linkplain RailroadMap map} for a new game
+ * off the JavaFX application thread. Loading happens in three stages, each of
+ * which reports its progress:
+ * <ol>
+ *     <li>The map file is read and parsed, unless it is already in the
+ *     {@link MapCache}.</li>
+ *     <li>The model for the new game is built from the parsed map.</li>
+ *     <li>The {@link SpacePane SpacePanes} that display the map are built,
+ *     one row at a time.</li>
+ * </ol>
+ * The task checks whether it has been cancelled between stages and after
+ * every row of space panes. Nothing that the task builds is attached to the
+ * scene, so once the task has succeeded the
+ * {@linkplain RailroadBaronsController controller} swaps the new map into the
+ * UI on the application thread.
+ */
+class MapLoadTask extends Task<RailroadMap> {
+    /**
+     * The number of stages in loading a map.
+     */
+    private static final int STAGES = 3;
+
+    /**
+     * The cache that the map is loaded through.
+     */
+    private final MapCache mapCache;
+
+    /**
+     * The {@link MapMaker} used to read the map and copy it for the new game.
+     */
+    private final MapMaker mapMaker;
+
+    /**
+     * The path to the map file.
+     */
+    private final Path path;
+
+    /**
+     * The pane that the map will be displayed in.
+     */
+    private final RailroadMapPane mapPane;
+
+    /**
+     * The {@link SpacePane SpacePanes} built for the map, once the last stage
+     * has finished.
+     */
+    private SpacePane[][] spaces;
+
+    /**
+     * Creates a new task to load a map.
+     *
+     * @param mapCache The {@link MapCache} used to read the map.
+     * @param mapMaker The {@link MapMaker} used to read and copy the map.
+     * @param path The path to the map file.
+     * @param mapPane The {@link RailroadMapPane} that will display the map.
+     */
+    MapLoadTask(MapCache mapCache, MapMaker mapMaker, Path path,
+                RailroadMapPane mapPane) {
+        this.mapCache = mapCache;
+        this.mapMaker = mapMaker;
+        this.path = path;
+        this.mapPane = mapPane;
+    }
+
+    /**
+     * Returns the path to the map file being loaded.
+     *
+     * @return The path to the map file.
+     */
+    Path getPath() {
+        return path;
+    }
+
+    /**
+     * Returns the {@link SpacePane SpacePanes} built to display the map.
+     * Only valid once the task has succeeded.
+     *
+     * @return The {@link SpacePane SpacePanes}, by row and column.
+     */
+    SpacePane[][] getSpaces() {
+        return spaces;
+    }
+
+    /**
+     * Loads the map and builds the panes that display it.
+     *
+     * @return The map for the new game, or null if the task was cancelled.
+     *
+     * @throws Exception If the map cannot be loaded.
+     */
+    @Override
+    protected RailroadMap call() throws Exception {
+        updateMessage("Reading " + path.getFileName() + "...");
+        updateProgress(0, STAGES);
+        RailroadMap template = mapCache.template(mapMaker, path);
+        if(isCancelled()) {
+            return null;
+        }
+
+        updateMessage("Building the map...");
+        updateProgress(1, STAGES);
+        RailroadMap map = mapMaker.copyMap(template);
+        if(isCancelled()) {
+            return null;
+        }
+
+        updateMessage("Drawing the map...");
+        updateProgress(2, STAGES);
+        spaces = mapPane.buildSpaces(map, this);
+        if(isCancelled()) {
+            return null;
+        }
+        updateProgress(STAGES, STAGES);
+        return map;
+    }
+
+    /**
+     * Reports that another row of {@link SpacePane SpacePanes} has been
+     * built.
+     *
+     * @param row The number of rows built so far.
+     * @param rows The number of rows in the map.
+     * @return True if the task should carry on building rows, or false if it
+     * has been cancelled.
+     */
+    boolean rowBuilt(int row, int rows) {
+        updateProgress(STAGES - 1 + (double)row / rows, STAGES);
+        return !isCancelled();
+    }
+}
@@ -1,7 +1,16 @@
 package model;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Interface for a class that can load and save {@linkplain RailroadMap maps}.
@@ -29,6 +38,49 @@ public interface MapMaker {
      */
     RailroadMap readMap(InputStream in) throws RailroadBaronsException;
 
+    /**
+     * Loads a {@linkplain RailroadMap map} from the file at the given
+     * {@linkplain Path path}. By default the file is opened and read through
+     * {@link #readMap(InputStream)}, but implementations may read the file
+     * more directly, e.g. by memory-mapping it.
+     *
+     * @param path The {@link Path} of the {@link RailroadMap map} file.
+     * @return The {@link RailroadMap map} read from the file.
+     *
+     * @throws RailroadBaronsException If there are any problems reading the
+     * file.
+     */
+    default RailroadMap readMap(Path path) throws RailroadBaronsException {
+        try(InputStream in = Files.newInputStream(path)) {
+            return readMap(in);
+        }
+        catch(IOException ioe) {
+            throw new RailroadBaronsException("Failed to load map: " +
+                    ioe.getMessage());
+        }
+    }
+
+    /**
+     * Makes a copy of a {@linkplain RailroadMap map} that a new game can be
+     * played on, with the same stations, routes and owners but none of the
+     * original map's observers. By default the map is written out with
+     * {@link #writeMap(RailroadMap, OutputStream)} and read back in, but
+     * implementations may share whatever parts of the map never change
+     * between games.
+     *
+     * @param map The {@link RailroadMap map} to copy.
+     * @return A new {@link RailroadMap map} with the same contents.
+     *
+     * @throws RailroadBaronsException If there are any problems copying the
+     * map.
+     */
+    default RailroadMap copyMap(RailroadMap map)
+            throws RailroadBaronsException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeMap(map, out);
+        return readMap(new ByteArrayInputStream(out.toByteArray()));
+    }
+
     /**
      * Writes the specified {@linkplain RailroadMap map} in the Railroad
      * Barons map file format to the given {@linkplain OutputStream output
@@ -45,4 +97,105 @@ public interface MapMaker {
      */
     void writeMap(RailroadMap map, OutputStream out)
             throws RailroadBaronsException;
+
+    /**
+     * Writes the specified {@linkplain RailroadMap map} in the Railroad
+     * Barons map file format to the file at the given {@linkplain Path path}.
+     * If the file name ends in ".gz" the map is compressed with gzip as it is
+     * written.
+     *
+     * @param map The {@link RailroadMap map} to write out to the file.
+     * @param path The {@link Path} of the file to write.
+     *
+     * @throws RailroadBaronsException If there are any problems writing the
+     * file.
+     */
+    default void writeMap(RailroadMap map, Path path)
+            throws RailroadBaronsException {
+        try(OutputStream out = Files.newOutputStream(path)) {
+            if(path.getFileName().toString().endsWith(".gz")) {
+                GZIPOutputStream gzip = new GZIPOutputStream(out, 1 << 16);
+                writeMap(map, gzip);
+                gzip.finish();
+            }
+            else {
+                writeMap(map, out);
+            }
+        }
+        catch(IOException ioe) {
+            throw new RailroadBaronsException("Failed to save map: " +
+                    ioe.getMessage());
+        }
+    }
+
+    /**
+     * Starts recording the {@linkplain Route routes} claimed in a new game
+     * on the specified {@linkplain RailroadMap map}, throwing away any record
+     * left from an earlier game on the same map file. By default claims are
+     * not recorded.
+     *
+     * @param mapFile The {@link Path} of the file the map was loaded from.
+     * @param map The {@link RailroadMap map} the game is played on.
+     * @param failures Told about any claim that could not be recorded, so
+     * that the user can be warned.
+     * @return The {@link ClaimRecorder}, already observing the map, or null
+     * if claims are not recorded.
+     *
+     * @throws RailroadBaronsException If the record cannot be started.
+     */
+    default ClaimRecorder recordClaims(Path mapFile, RailroadMap map,
+                                       Consumer<String> failures)
+            throws RailroadBaronsException {
+        return null;
+    }
+
+    /**
+     * Picks up a game on the map file at the given {@linkplain Path path}
+     * that stopped part way through, reading the map with every route
+     * claimed that had been claimed when it stopped, and carries on
+     * recording its claims. By default games cannot be picked up again.
+     *
+     * @param mapFile The {@link Path} of the file the map was loaded from.
+     * @param failures Told about any claim that could not be recorded, so
+     * that the user can be warned.
+     * @return The {@link ClaimRecorder}, already observing the recovered
+     * {@link RailroadMap map}, or null if claims are not recorded.
+     *
+     * @throws RailroadBaronsException If the map or the record cannot be
+     * read.
+     */
+    default ClaimRecorder resumeClaims(Path mapFile,
+                                       Consumer<String> failures)
+            throws RailroadBaronsException {
+        return null;
+    }
+
+    /**
+     * Checks whether a game on the map file at the given
+     * {@linkplain Path path} stopped before it was over, so that it can be
+     * {@linkplain #resumeClaims(Path, Consumer) picked up again}. By default
+     * claims are not recorded, so there is never such a game.
+     *
+     * @param mapFile The {@link Path} of the file the map was loaded from.
+     * @return True if there is a recorded game on the map that is not over.
+     */
+    default boolean hasRecordedClaims(Path mapFile) {
+        return false;
+    }
+
+    /**
+     * Lists what is known about each map file in the directory at the given
+     * {@linkplain Path path}, so that a map can be chosen without reading
+     * every file as a {@linkplain RailroadMap map}. By default maps are not
+     * catalogued, so nothing is listed.
+     *
+     * @param directory The {@link Path} of the directory holding the maps.
+     * @return A {@link MapInfo} for each map file in the directory.
+     *
+     * @throws RailroadBaronsException If the directory cannot be listed.
+     */
+    default List<MapInfo> listMaps(Path directory)
+            throws RailroadBaronsException {
+        return Collections.emptyList();
+    }
 }
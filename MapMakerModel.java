@@ -1,15 +1,22 @@
 package student;
 
+import model.MapInfo;
 import model.RailroadBaronsException;
 import model.RailroadMap;
-import model.Route;
 import model.Station;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Scanner;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
 
 /**
  * Interface for a class that can load and save maps.
@@ -17,79 +24,103 @@ import java.util.Scanner;
  */
 
 public class MapMakerModel implements model.MapMaker {
+    private static final int GZIP_BUFFER_SIZE = 1 << 16;
+    public static final String MAP_EXTENSION = ".rbmap";
+    public static final String COMPILED_EXTENSION = ".rbmapc";
 
-    private int easternMost;
-    private int southernMost;
-    private HashMap<Integer, Station> stations;
-    private List<Route> routes;
+    private MapTopology topology;
+    private MapWriter writer;
 
     /**
      * Default Constructor for a MapMaker, sets all values to their starting values
      */
     public MapMakerModel() {
-        this.easternMost = 0;
-        this.southernMost = 0;
-        this.stations = new HashMap<>();
-        this.routes = new ArrayList<>();
+        this.topology = null;
+        this.writer = new MapWriter();
     }
     @Override
     /**
-     * Loads a map using the data in the given input stream.
+     * Loads a map using the data in the given input stream. The stream may hold either a text
+     * map file or a compiled map, which is recognized by its magic number. Either may be
+     * compressed with gzip, in which case it is decompressed on the way into the parser.
      * @param in The InputStream used to read the map data.
      * @return The map read from the given InputStream.
      * @throws RailroadBaronsException If there are any problems reading the data from the InputStream.
      */
     public RailroadMap readMap(InputStream in) throws RailroadBaronsException {
-        boolean routesRead = false;
         try {
-            BufferedReader br = new BufferedReader(new InputStreamReader(in));
-            String line = "test";
-            String lineTokens[];
-
-            //read in the stations
-            while(!line.equals(null)) {
-                line = br.readLine();
-
-                if(line.equals("##ROUTES##")) {
-                    routesRead = true;
-                    continue;
-                }
-                if(!routesRead) {
-                    lineTokens = line.split("\\s+");
-                    if (Integer.parseInt(lineTokens[2]) > this.easternMost) {
-                        this.easternMost = Integer.parseInt(lineTokens[2]);
-                    }
-
-                    if (Integer.parseInt(lineTokens[1]) > this.southernMost) {
-                        this.southernMost = Integer.parseInt(lineTokens[1]);
-                    }
-
-                    //can't put stationModel here, needs a station object
-                    stations.put(Integer.parseInt(lineTokens[0]),
-                            new StationModel(Integer.parseInt(lineTokens[1]),
-                                    Integer.parseInt(lineTokens[2]), lineTokens[3]));
-                }
+            PushbackInputStream stream = new PushbackInputStream(in, 4);
+            byte[] magic = new byte[4];
+            int read = stream.readNBytes(magic, 0, magic.length);
+            stream.unread(magic, 0, read);
+            if(isGzip(ByteBuffer.wrap(magic, 0, read))) {
+                return readMap(new GZIPInputStream(stream, GZIP_BUFFER_SIZE));
+            }
+            if(BinaryMapFormat.isCompiled(ByteBuffer.wrap(magic, 0, read))) {
+                return readCompiled(ByteBuffer.wrap(stream.readAllBytes()));
+            }
+            return readText(new MapParser(Channels.newChannel(stream)));
+        }
+        catch (IOException ioe) {
+            throw new RailroadBaronsException("Failed to read map: " + ioe.getMessage());
+        }
+    }
 
-                //read in the routes
-                else {
-                    lineTokens = line.split("\\s+");
-                    Station origin = findStation(Integer.parseInt(lineTokens[0]));
-                    Station destination = findStation(Integer.parseInt(lineTokens[1]));
-                    int length = this.setLength(origin, destination);
-                    routes.add(new RouteModel(length, origin, destination));
+    /**
+     * Loads a map from a file by memory-mapping it and parsing the mapped bytes directly, so
+     * the file is read out of the page cache without being copied through stream buffers.
+     * The first bytes of the file are read before anything else, so files compressed with gzip
+     * are decompressed through a stream over the channel and compiled maps are recognized by
+     * their magic number whatever their size. Compiled maps are copied straight out of the
+     * mapping, and text files too big to map in one piece are read through the channel.
+     * @param path The path of the map file.
+     * @return The map read from the file.
+     * @throws RailroadBaronsException If there are any problems reading the file, or it is a
+     * compiled map too big to map in one piece.
+     */
+    @Override
+    public RailroadMap readMap(Path path) throws RailroadBaronsException {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4);
+            while(magic.hasRemaining() && channel.read(magic, magic.position()) >= 0) {
+                continue;
+            }
+            magic.flip();
+            if(isGzip(magic)) {
+                return readMap(Channels.newInputStream(channel));
+            }
+            if(channel.size() > Integer.MAX_VALUE) {
+                if(BinaryMapFormat.isCompiled(magic)) {
+                    throw new RailroadBaronsException("Compiled map is too big to load: "
+                            + channel.size() + " bytes");
                 }
+                return readText(new MapParser(channel));
+            }
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if(BinaryMapFormat.isCompiled(mapped)) {
+                return readCompiled(mapped);
             }
-            return new RailroadBaronsMapModel(this.southernMost + 1, this.easternMost + 1, this.routes, this.stations);
+            return readText(new MapParser(mapped));
         }
         catch (IOException ioe) {
-            ioe.printStackTrace();
+            throw new RailroadBaronsException("Failed to read map: " + ioe.getMessage());
         }
+    }
 
-        //used to return the map when the bottom of the file is reached
-        catch (NullPointerException npe) {
-            return new RailroadBaronsMapModel(this.southernMost + 1, this.easternMost + 1, this.routes, this.stations);
+    /**
+     * Copies a map for a new game. Maps read by this map maker share their topology with the
+     * copy, so only the owner of each route is copied.
+     * @param map The map to copy.
+     * @return A new map with the same layout and owners and no observers.
+     * @throws RailroadBaronsException If there are any problems copying the map.
+     */
+    @Override
+    public RailroadMap copyMap(RailroadMap map) throws RailroadBaronsException {
+        if(map instanceof RailroadBaronsMapModel) {
+            RailroadBaronsMapModel source = (RailroadBaronsMapModel)map;
+            return new RailroadBaronsMapModel(source.getTopology(), source.getOwners());
         }
-        return null;
+        return model.MapMaker.super.copyMap(map);
     }
 
     @Override
@@ -101,62 +132,173 @@ public class MapMakerModel implements model.MapMaker {
      * @throws RailroadBaronsException If there are any problems writing the data to the OutputStream.
      */
     public void writeMap(RailroadMap map, OutputStream out) throws RailroadBaronsException {
-        PrintWriter printer = new PrintWriter(out);
-
-        //write the stations out to the file
-        for(Integer key: stations.keySet()) {
-            printer.println(key + " " + stations.get(key).getRow() + " " +
-                    stations.get(key).getCol() + " " + stations.get(key).getName());
-        }
-        printer.println("##ROUTES##");
-
-        //write the routes out to the file
-        for(Route route: routes) {
-            int originNum = 0;
-            int destinationNum = 0;
-            for(Integer key: stations.keySet()) {
-                if(stations.get(key) == route.getOrigin()) {
-                    originNum = key;
-                }
+        try {
+            this.writer.write(map, out);
+        }
+        catch (IOException ioe) {
+            throw new RailroadBaronsException("Failed to write map: " + ioe.getMessage());
+        }
+    }
 
-                else if(stations.get(key) == route.getDestination()) {
-                    destinationNum = key;
-                }
-            }
-            printer.println(originNum + " " + destinationNum + " " + route.getBaron());
+    /**
+     * Checks whether a buffer starts with the gzip magic bytes, without moving the buffer's
+     * position.
+     * @param buffer the buffer to look at
+     * @return true if the buffer holds a gzip stream
+     */
+    private static boolean isGzip(ByteBuffer buffer) {
+        return buffer.remaining() >= 2 && buffer.get(buffer.position()) == (byte)0x1f
+                && buffer.get(buffer.position() + 1) == (byte)0x8b;
+    }
+
+    /**
+     * Loads a text map, keeping its topology as the last map read.
+     * @param parser the parser reading the map file
+     * @return the map, with its routes claimed by the barons named in the map file
+     * @throws IOException If the map file cannot be read.
+     * @throws RailroadBaronsException If the map file is not valid.
+     */
+    private RailroadMap readText(MapParser parser) throws IOException, RailroadBaronsException {
+        this.topology = parser.parse();
+        return new RailroadBaronsMapModel(this.topology, parser.getOwners());
+    }
+
+    /**
+     * Loads a compiled map, keeping its topology as the last map read.
+     * @param buffer the compiled map
+     * @return the map, with its routes claimed by the barons recorded in the compiled map
+     * @throws RailroadBaronsException If the compiled map is damaged.
+     */
+    private RailroadMap readCompiled(ByteBuffer buffer) throws RailroadBaronsException {
+        byte[] owners = new byte[BinaryMapFormat.routeCount(buffer)];
+        this.topology = BinaryMapFormat.read(buffer, owners);
+        return new RailroadBaronsMapModel(this.topology, owners);
+    }
+
+    /**
+     * Writes a map in the compiled binary format, including the owner of every route.
+     * @param map The map to write, which must have been read by a MapMakerModel.
+     * @param out The OutputStream to which the compiled map should be written.
+     * @throws RailroadBaronsException If the map cannot be compiled or there are any problems
+     * writing to the OutputStream.
+     */
+    public void writeCompiledMap(RailroadMap map, OutputStream out) throws RailroadBaronsException {
+        if(!(map instanceof RailroadBaronsMapModel)) {
+            throw new RailroadBaronsException("Only maps read by a MapMakerModel can be compiled");
+        }
+        RailroadBaronsMapModel model = (RailroadBaronsMapModel)map;
+        ByteBuffer compiled = BinaryMapFormat.write(model.getTopology(), model.getOwners());
+        try {
+            out.write(compiled.array(), 0, compiled.limit());
+            out.flush();
+        }
+        catch (IOException ioe) {
+            throw new RailroadBaronsException("Failed to write map: " + ioe.getMessage());
         }
     }
 
     /**
-     *
-     * @param stationNum the number associated with the station to retrieve
-     * @return the station associated with the station num
+     * Compiles a map file into the binary format.
+     * @param source The map file to read, in either format.
+     * @param target The file to write the compiled map to.
+     * @throws RailroadBaronsException If there are any problems reading or writing the files.
      */
-    public Station findStation(int stationNum) {
-        for(Integer key: stations.keySet()) {
-            if(key == stationNum) {
-                return stations.get(key);
-            }
+    public void compileMap(Path source, Path target) throws RailroadBaronsException {
+        RailroadMap map = readMap(source);
+        try(OutputStream out = Files.newOutputStream(target)) {
+            writeCompiledMap(map, out);
+        }
+        catch (IOException ioe) {
+            throw new RailroadBaronsException("Failed to write map: " + ioe.getMessage());
         }
-        return null;
     }
 
     /**
-     * Sets the length of the route based off of the location of the origin and destination.
-     * @param origin the station at the origin of the route
-     * @param destination the station at the end of the route
-     * @return
+     * Compiles every text map file in a directory, writing each compiled map next to the map
+     * file it came from with the compiled extension in place of the map extension.
+     * @param directory The directory holding the map files.
+     * @return The number of maps compiled.
+     * @throws RailroadBaronsException If there are any problems reading or writing the files.
      */
-    public int setLength(Station origin, Station destination) {
-        int length = 0;
-        if(origin.getCol() != destination.getCol()) {
-            length = Math.abs(origin.getCol() - destination.getCol());
+    public int compileMaps(Path directory) throws RailroadBaronsException {
+        int compiled = 0;
+        try(DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + MAP_EXTENSION)) {
+            for(Path file: files) {
+                String name = file.getFileName().toString();
+                compileMap(file, file.resolveSibling(name.substring(0, name.length() - MAP_EXTENSION.length())
+                        + COMPILED_EXTENSION));
+                compiled++;
+            }
         }
+        catch (IOException ioe) {
+            throw new RailroadBaronsException("Failed to list maps: " + ioe.getMessage());
+        }
+        return compiled;
+    }
 
-        else if(origin.getRow() != destination.getRow()) {
-            length = Math.abs(origin.getRow() - destination.getRow());
+    /**
+     * Starts logging the claims made in a new game with a {@link ClaimLog} next to the map file.
+     * @param mapFile The file the map was loaded from.
+     * @param map The map the game is played on, which must have been read by this map maker.
+     * @param failures Told about any claim that could not be logged.
+     * @return The log, already observing the map.
+     * @throws RailroadBaronsException If the map was not read by this map maker, or the log cannot be opened.
+     */
+    @Override
+    public ClaimLog recordClaims(Path mapFile, RailroadMap map, Consumer<String> failures)
+            throws RailroadBaronsException {
+        if(!(map instanceof RailroadBaronsMapModel)) {
+            throw new RailroadBaronsException("Claim logs need maps read by a MapMakerModel");
         }
+        return ClaimLog.start(mapFile, this, (RailroadBaronsMapModel)map, failures);
+    }
+
+    /**
+     * Picks up a game that stopped part way through from the {@link ClaimLog} next to the map file.
+     * @param mapFile The file the map was loaded from.
+     * @param failures Told about any claim that could not be logged.
+     * @return The log, already observing the recovered map.
+     * @throws RailroadBaronsException If the map or the log cannot be read.
+     */
+    @Override
+    public ClaimLog resumeClaims(Path mapFile, Consumer<String> failures) throws RailroadBaronsException {
+        return ClaimLog.resume(mapFile, this, failures);
+    }
+
+    /**
+     * Checks whether the {@link ClaimLog} next to the map file holds a game that is not over.
+     * @param mapFile The file the map was loaded from.
+     * @return True if the game can be picked up again.
+     */
+    @Override
+    public boolean hasRecordedClaims(Path mapFile) {
+        return ClaimLog.hasRecord(mapFile);
+    }
+
+    /**
+     * Lists the maps in a directory from its {@link MapCatalog}, bringing the catalog up to date
+     * first so that only new or changed map files are read.
+     * @param directory The directory holding the maps.
+     * @return An entry for each map file in the directory, in file name order.
+     * @throws RailroadBaronsException If the directory cannot be listed or the catalog cannot be
+     * read or saved.
+     */
+    @Override
+    public List<MapInfo> listMaps(Path directory) throws RailroadBaronsException {
+        MapCatalog catalog = new MapCatalog(directory);
+        catalog.update();
+        return new ArrayList<>(catalog.getEntries());
+    }
 
-        return length - 1;
+    /**
+     * Looks up a station from the last map read by its number in the map file.
+     * @param stationNum the number associated with the station to retrieve
+     * @return the station associated with the station num
+     */
+    public Station findStation(int stationNum) {
+        if(this.topology == null || this.topology.getStationId(stationNum) < 0) {
+            return null;
+        }
+        return this.topology.getStation(this.topology.getStationId(stationNum));
     }
 }
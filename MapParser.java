@@ -0,0 +1,416 @@
+package student;
+
+import model.Baron;
+import model.RailroadBaronsException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads the Railroad Barons map file format straight from bytes. Numbers are parsed in place
+ * as the bytes go by, so the only objects made while reading a map are the station names.
+ * The bytes either come from a channel, through one reusable buffer, or from a buffer that
+ * already holds the whole file.
+ *
+ * A bad line does not stop the parser. Each problem is noted and the parser moves on to the
+ * next line, and once the whole file has been read the map is checked by a
+ * {@link MapValidator}. Every problem found is then reported together.
+ */
+public class MapParser {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final byte[] ROUTES = "##ROUTES##".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[][] OWNERS = new byte[Baron.values().length][];
+
+    static {
+        for(Baron baron: Baron.values()) {
+            OWNERS[baron.ordinal()] = baron.name().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private ReadableByteChannel channel;
+    private ByteBuffer buffer;
+    private byte[] scratch;
+    private int line;
+    private List<String> problems;
+
+    private int stationCount;
+    private int[] numbers;
+    private int[] rows;
+    private int[] cols;
+    private String[] names;
+    private StationIndex index;
+
+    private int routeCount;
+    private int[] origins;
+    private int[] destinations;
+    private byte[] owners;
+
+    /**
+     * Constructor for a parser that reads from a channel.
+     * @param channel the channel the map file is read from
+     */
+    public MapParser(ReadableByteChannel channel) {
+        this(ByteBuffer.allocate(BUFFER_SIZE), channel);
+        this.buffer.flip();
+    }
+
+    /**
+     * Constructor for a parser that reads a map file that is already in memory, from the
+     * buffer's position to its limit.
+     * @param buffer the buffer holding the map file
+     */
+    public MapParser(ByteBuffer buffer) {
+        this(buffer, null);
+    }
+
+    /**
+     * Constructor used by the other constructors to set up the parser's state.
+     * @param buffer the buffer bytes are read from
+     * @param channel the channel used to refill the buffer, or null if there is no more
+     */
+    private MapParser(ByteBuffer buffer, ReadableByteChannel channel) {
+        this.buffer = buffer;
+        this.channel = channel;
+        this.scratch = new byte[64];
+        this.line = 1;
+        this.problems = new ArrayList<>();
+        this.numbers = new int[64];
+        this.rows = new int[64];
+        this.cols = new int[64];
+        this.names = new String[64];
+        this.index = new StationIndex(64);
+        this.origins = new int[64];
+        this.destinations = new int[64];
+        this.owners = new byte[64];
+    }
+
+    /**
+     * Reads the whole map file.
+     * @return the topology of the map
+     * @throws IOException if the bytes cannot be read
+     * @throws InvalidMapException if the map file is not in the right format or the map has
+     * problems, listing every problem found
+     */
+    public MapTopology parse() throws IOException, InvalidMapException {
+        boolean routesRead = false;
+        while(skipWhitespace()) {
+            if(peek() == '#') {
+                //only the routes header switches to reading routes, any other line starting
+                //with # is a problem
+                int line = this.line;
+                int length = readLine();
+                if(matches(ROUTES, length)) {
+                    routesRead = true;
+                }
+                else {
+                    problem("unexpected line", line);
+                }
+            }
+            else {
+                try {
+                    if(!routesRead) {
+                        readStation();
+                    }
+                    else {
+                        readRoute();
+                    }
+                }
+                catch (RailroadBaronsException rbe) {
+                    this.problems.add(rbe.getMessage());
+                    readLine();
+                }
+            }
+        }
+
+        int[] numbers = Arrays.copyOf(this.numbers, this.stationCount);
+        int[] rows = Arrays.copyOf(this.rows, this.stationCount);
+        int[] cols = Arrays.copyOf(this.cols, this.stationCount);
+        int[] origins = Arrays.copyOf(this.origins, this.routeCount);
+        int[] destinations = Arrays.copyOf(this.destinations, this.routeCount);
+        this.problems.addAll(new MapValidator(numbers, rows, cols, origins, destinations).validate());
+        if(!this.problems.isEmpty()) {
+            throw new InvalidMapException(this.problems);
+        }
+        return new MapTopology(numbers, rows, cols, Arrays.copyOf(this.names, this.stationCount),
+                origins, destinations, true);
+    }
+
+    /**
+     * Reads a station line: the station number, row, column and name. A station without a
+     * name, or with the same number as an earlier station, is noted as a problem and left out.
+     * @throws IOException if the bytes cannot be read
+     * @throws RailroadBaronsException if the line does not start with three numbers
+     */
+    private void readStation() throws IOException, RailroadBaronsException {
+        if(this.stationCount == this.numbers.length) {
+            int size = this.stationCount * 2;
+            this.numbers = Arrays.copyOf(this.numbers, size);
+            this.rows = Arrays.copyOf(this.rows, size);
+            this.cols = Arrays.copyOf(this.cols, size);
+            this.names = Arrays.copyOf(this.names, size);
+        }
+        int line = this.line;
+        int number = readInt();
+        this.rows[this.stationCount] = readInt();
+        this.cols[this.stationCount] = readInt();
+        int length = readLine();
+        if(length == 0) {
+            problem("missing station name", line);
+            return;
+        }
+        if(this.index.get(number) >= 0) {
+            problem("station " + number + " is listed twice", line);
+            return;
+        }
+        this.numbers[this.stationCount] = number;
+        this.names[this.stationCount] = new String(this.scratch, 0, length, StandardCharsets.UTF_8);
+        this.index.put(number, this.stationCount);
+        this.stationCount++;
+    }
+
+    /**
+     * Reads a route line: the numbers of the origin and destination stations, followed by
+     * the owner. A route without an owner is unclaimed. A route to a station that is not in
+     * the map, or with an owner that is not a baron, is noted as a problem and left out.
+     * @throws IOException if the bytes cannot be read
+     * @throws RailroadBaronsException if the line does not start with two numbers
+     */
+    private void readRoute() throws IOException, RailroadBaronsException {
+        if(this.routeCount == this.origins.length) {
+            int size = this.routeCount * 2;
+            this.origins = Arrays.copyOf(this.origins, size);
+            this.destinations = Arrays.copyOf(this.destinations, size);
+            this.owners = Arrays.copyOf(this.owners, size);
+        }
+        int line = this.line;
+        int origin = readInt();
+        int destination = readInt();
+        int owner = owner(readLine(), line);
+        this.origins[this.routeCount] = station(origin, line);
+        this.destinations[this.routeCount] = station(destination, line);
+        this.owners[this.routeCount] = (byte)owner;
+        if(this.origins[this.routeCount] >= 0 && this.destinations[this.routeCount] >= 0 && owner >= 0) {
+            this.routeCount++;
+        }
+    }
+
+    /**
+     * Looks up the id of a station by its number, noting a problem if there is no such station.
+     * @param number the station's number in the map file
+     * @param line the line the station number is on
+     * @return the station's id, or -1 if no station has that number
+     */
+    private int station(int number, int line) {
+        int id = this.index.get(number);
+        if(id < 0) {
+            problem("unknown station " + number, line);
+        }
+        return id;
+    }
+
+    /**
+     * Looks up the baron named in the scratch array, noting a problem if there is no such baron.
+     * @param length the number of bytes in the scratch array
+     * @param line the line the owner is on
+     * @return the baron's ordinal, UNCLAIMED if there is no owner, or -1 if there is no such baron
+     */
+    private int owner(int length, int line) {
+        if(length == 0) {
+            return Baron.UNCLAIMED.ordinal();
+        }
+        for(int i = 0; i < OWNERS.length; i++) {
+            if(matches(OWNERS[i], length)) {
+                return i;
+            }
+        }
+        problem("unknown owner " + new String(this.scratch, 0, length, StandardCharsets.UTF_8), line);
+        return -1;
+    }
+
+    /**
+     * Accessor for the owner of each route, once the map has been parsed
+     * @return the owner of each route, by Baron ordinal
+     */
+    public byte[] getOwners() {
+        return Arrays.copyOf(this.owners, this.routeCount);
+    }
+
+    /**
+     * Reads a whole number, skipping any spaces in front of it.
+     * @return the number
+     * @throws IOException if the bytes cannot be read
+     * @throws RailroadBaronsException if there is no number, or the number is too big to be
+     * an int
+     */
+    private int readInt() throws IOException, RailroadBaronsException {
+        skipSpaces();
+        boolean negative = false;
+        if(peek() == '-') {
+            negative = true;
+            next();
+        }
+        int c = peek();
+        if(c < '0' || c > '9') {
+            throw error("expected a number");
+        }
+        int value = 0;
+        while(c >= '0' && c <= '9') {
+            if(value > (Integer.MAX_VALUE - (c - '0')) / 10) {
+                throw error("number is too big");
+            }
+            value = value * 10 + (c - '0');
+            next();
+            c = peek();
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Reads the rest of the current line into the scratch array, without the spaces at either
+     * end, and moves on to the start of the next line.
+     * @return the number of bytes in the scratch array
+     * @throws IOException if the bytes cannot be read
+     */
+    private int readLine() throws IOException {
+        skipSpaces();
+        int length = 0;
+        int c = next();
+        while(c != -1 && c != '\n') {
+            if(length == this.scratch.length) {
+                this.scratch = Arrays.copyOf(this.scratch, length * 2);
+            }
+            this.scratch[length++] = (byte)c;
+            c = next();
+        }
+        if(c == '\n') {
+            this.line++;
+        }
+        while(length > 0 && isSpace(this.scratch[length - 1])) {
+            length--;
+        }
+        return length;
+    }
+
+    /**
+     * Checks whether the scratch array holds exactly the given bytes.
+     * @param expected the bytes to look for
+     * @param length the number of bytes in the scratch array
+     * @return true if the bytes match, false if not
+     */
+    private boolean matches(byte[] expected, int length) {
+        if(length != expected.length) {
+            return false;
+        }
+        for(int i = 0; i < length; i++) {
+            if(this.scratch[i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Skips spaces and blank lines.
+     * @return true if there is more to read, false at the end of the file
+     * @throws IOException if the bytes cannot be read
+     */
+    private boolean skipWhitespace() throws IOException {
+        int c = peek();
+        while(c == '\n' || isSpace(c)) {
+            if(c == '\n') {
+                this.line++;
+            }
+            next();
+            c = peek();
+        }
+        return c != -1;
+    }
+
+    /**
+     * Skips spaces without moving past the end of the line.
+     * @throws IOException if the bytes cannot be read
+     */
+    private void skipSpaces() throws IOException {
+        while(isSpace(peek())) {
+            next();
+        }
+    }
+
+    /**
+     * Checks whether a byte is a space within a line.
+     * @param c the byte
+     * @return true for spaces, tabs and carriage returns
+     */
+    private static boolean isSpace(int c) {
+        return c == ' ' || c == '\t' || c == '\r';
+    }
+
+    /**
+     * Looks at the next byte without reading past it.
+     * @return the next byte, or -1 at the end of the file
+     * @throws IOException if the bytes cannot be read
+     */
+    private int peek() throws IOException {
+        if(!this.buffer.hasRemaining() && !refill()) {
+            return -1;
+        }
+        return this.buffer.get(this.buffer.position()) & 0xff;
+    }
+
+    /**
+     * Reads the next byte.
+     * @return the next byte, or -1 at the end of the file
+     * @throws IOException if the bytes cannot be read
+     */
+    private int next() throws IOException {
+        if(!this.buffer.hasRemaining() && !refill()) {
+            return -1;
+        }
+        return this.buffer.get() & 0xff;
+    }
+
+    /**
+     * Reads more bytes from the channel into the buffer.
+     * @return true if more bytes were read, false at the end of the file
+     * @throws IOException if the bytes cannot be read
+     */
+    private boolean refill() throws IOException {
+        if(this.channel == null) {
+            return false;
+        }
+        this.buffer.clear();
+        int read = 0;
+        while(read == 0) {
+            read = this.channel.read(this.buffer);
+        }
+        this.buffer.flip();
+        if(read < 0) {
+            this.channel = null;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Notes a problem with a line of the map file.
+     * @param problem what is wrong with the line
+     * @param line the number of the line
+     */
+    private void problem(String problem, int line) {
+        this.problems.add(problem + " on line " + line);
+    }
+
+    /**
+     * Makes an exception for a problem on the current line of the map file.
+     * @param problem what is wrong with the line
+     * @return the exception
+     */
+    private RailroadBaronsException error(String problem) {
+        return new RailroadBaronsException(problem + " on line " + this.line);
+    }
+}
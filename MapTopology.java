@@ -0,0 +1,401 @@
+package student;
+
+import model.Orientation;
+
+import java.util.Collections;
+
+/**
+ * The parts of a map that never change during a game: where the stations are, which stations
+ * each route connects and how long the routes are. Everything is kept in parallel arrays
+ * indexed by station id or route id, and nothing in here is changed after it is built, so one
+ * topology can be shared by any number of games. Each game keeps its own record of who owns
+ * which route in a {@link RailroadBaronsMapModel}.
+ */
+public class MapTopology {
+    public static final long MAX_SPACES = 1L << 28;
+
+    private int rows;
+    private int cols;
+    private int[] stationNumbers;
+    private StationIndex stationIndex;
+    private StationModel[] stations;
+    private int[] routeOrigins;
+    private int[] routeDestinations;
+    private int[] routeLengths;
+    private byte[] routeEdges;
+    private int longestRoute;
+    private int[] lengthStarts;
+    private int[] routesByLength;
+    private int[] cells;
+    private Graph graph;
+    private boolean validated;
+
+    /**
+     * Builds the topology of a map that has not been checked by a {@link MapValidator}.
+     * @param stationNumbers the number each station was given in the map file
+     * @param stationRows the row of each station
+     * @param stationCols the column of each station
+     * @param stationNames the name of each station
+     * @param routeOrigins the id of the origin station of each route
+     * @param routeDestinations the id of the destination station of each route
+     * @throws InvalidMapException if the map has more than {@link #MAX_SPACES} spaces
+     * @see #MapTopology(int[], int[], int[], String[], int[], int[], boolean)
+     */
+    public MapTopology(int[] stationNumbers, int[] stationRows, int[] stationCols, String[] stationNames,
+                       int[] routeOrigins, int[] routeDestinations) throws InvalidMapException {
+        this(stationNumbers, stationRows, stationCols, stationNames, routeOrigins, routeDestinations, false);
+    }
+
+    /**
+     * Builds the topology of a map. Stations are given ids in the order they appear in the
+     * arrays, and so are routes. The arrays are copied, so changing them afterwards does not
+     * change the topology. A map may have at most {@link #MAX_SPACES} spaces, so that the index
+     * of every space on the map stays a manageable size.
+     * @param stationNumbers the number each station was given in the map file
+     * @param stationRows the row of each station
+     * @param stationCols the column of each station
+     * @param stationNames the name of each station
+     * @param routeOrigins the id of the origin station of each route
+     * @param routeDestinations the id of the destination station of each route
+     * @param validated true if a {@link MapValidator} found no problems with these arrays
+     * @throws InvalidMapException if the map has more than {@link #MAX_SPACES} spaces
+     */
+    public MapTopology(int[] stationNumbers, int[] stationRows, int[] stationCols, String[] stationNames,
+                       int[] routeOrigins, int[] routeDestinations, boolean validated)
+            throws InvalidMapException {
+        this.validated = validated;
+        this.stationNumbers = stationNumbers.clone();
+        this.stationIndex = new StationIndex(this.stationNumbers);
+        this.routeOrigins = routeOrigins.clone();
+        this.routeDestinations = routeDestinations.clone();
+        this.stations = new StationModel[stationNumbers.length];
+
+        //the map is just big enough to hold the southernmost and easternmost stations
+        int north = Integer.MAX_VALUE;
+        int west = Integer.MAX_VALUE;
+        long rows = 0;
+        long cols = 0;
+        for(int i = 0; i < this.stations.length; i++) {
+            this.stations[i] = new StationModel(i, this.stationNumbers[i], stationRows[i], stationCols[i],
+                    stationNames[i]);
+            rows = Math.max(rows, stationRows[i] + 1L);
+            cols = Math.max(cols, stationCols[i] + 1L);
+            north = Math.min(north, stationRows[i]);
+            west = Math.min(west, stationCols[i]);
+        }
+
+        String tooBig = checkSize(rows, cols);
+        if(tooBig != null) {
+            throw new InvalidMapException(Collections.singletonList(tooBig));
+        }
+        this.rows = (int)rows;
+        this.cols = (int)cols;
+
+        this.routeLengths = new int[routeOrigins.length];
+        this.routeEdges = new byte[routeOrigins.length];
+        for(int i = 0; i < routeOrigins.length; i++) {
+            StationModel origin = this.stations[routeOrigins[i]];
+            StationModel destination = this.stations[routeDestinations[i]];
+            this.routeLengths[i] = length(origin, destination);
+            this.longestRoute = Math.max(this.longestRoute, this.routeLengths[i]);
+            this.routeEdges[i] = (byte)edges(origin, destination, north, west);
+        }
+
+        this.cells = new int[this.rows * this.cols];
+        buildIndex();
+        buildLengthIndex();
+        this.graph = new Graph(this.stations.length, this.routeOrigins, this.routeDestinations);
+    }
+
+    /**
+     * Tells whether the map was checked by a {@link MapValidator} before it was built, so that
+     * a compiled copy of it can be trusted without checking it again.
+     * @return true if the map was validated
+     */
+    public boolean isValidated() {
+        return this.validated;
+    }
+
+    /**
+     * Checks that a map is not too big to index.
+     * @param rows the number of rows in the map
+     * @param cols the number of columns in the map
+     * @return a description of the problem if the map has more than {@link #MAX_SPACES}
+     * spaces, otherwise null
+     */
+    static String checkSize(long rows, long cols) {
+        if(rows * cols > MAX_SPACES) {
+            return "the map is " + rows + " rows by " + cols + " columns, which is more than the "
+                    + MAX_SPACES + " spaces a map may have";
+        }
+        return null;
+    }
+
+    /**
+     * Accessor for the number of rows in the map
+     * @return the number of rows
+     */
+    public int getRows() {
+        return this.rows;
+    }
+
+    /**
+     * Accessor for the number of columns in the map
+     * @return the number of columns
+     */
+    public int getCols() {
+        return this.cols;
+    }
+
+    /**
+     * Accessor for the number of stations in the map
+     * @return the number of stations
+     */
+    public int getStationCount() {
+        return this.stations.length;
+    }
+
+    /**
+     * Accessor for the number of routes in the map
+     * @return the number of routes
+     */
+    public int getRouteCount() {
+        return this.routeOrigins.length;
+    }
+
+    /**
+     * Accessor for a station. Stations have no state that changes during a game, so the same
+     * station is shared by every game played on this topology.
+     * @param station the id of the station
+     * @return the station
+     */
+    public StationModel getStation(int station) {
+        return this.stations[station];
+    }
+
+    /**
+     * Accessor for the number a station was given in the map file
+     * @param station the id of the station
+     * @return the station's number in the map file
+     */
+    public int getStationNumber(int station) {
+        return this.stationNumbers[station];
+    }
+
+    /**
+     * Looks up a station by the number it was given in the map file
+     * @param number the station's number in the map file
+     * @return the id of the station, or -1 if no station has that number
+     */
+    public int getStationId(int number) {
+        return this.stationIndex.get(number);
+    }
+
+    /**
+     * Accessor for the origin of a route
+     * @param route the id of the route
+     * @return the id of the station at the start of the route
+     */
+    public int getOrigin(int route) {
+        return this.routeOrigins[route];
+    }
+
+    /**
+     * Accessor for the destination of a route
+     * @param route the id of the route
+     * @return the id of the station at the end of the route
+     */
+    public int getDestination(int route) {
+        return this.routeDestinations[route];
+    }
+
+    /**
+     * Accessor for the length of a route
+     * @param route the id of the route
+     * @return the number of tracks in the route
+     */
+    public int getLength(int route) {
+        return this.routeLengths[route];
+    }
+
+    /**
+     * Accessor for the length of the longest route
+     * @return the number of tracks in the longest route
+     */
+    public int getLongestRoute() {
+        return this.longestRoute;
+    }
+
+    /**
+     * Counts the routes of a given length
+     * @param length the number of tracks
+     * @return the number of routes with that many tracks
+     */
+    public int countRoutesOfLength(int length) {
+        if(length < 0 || length > this.longestRoute) {
+            return 0;
+        }
+        return this.lengthStarts[length + 1] - this.lengthStarts[length];
+    }
+
+    /**
+     * Accessor for one of the routes of a given length. The routes of each length are kept in
+     * order of their ids.
+     * @param length the number of tracks
+     * @param index which of the routes of that length, from 0 to
+     *              {@link #countRoutesOfLength(int)} - 1
+     * @return the id of the route
+     */
+    public int getRouteOfLength(int length, int index) {
+        return this.routesByLength[this.lengthStarts[length] + index];
+    }
+
+    /**
+     * Accessor for the orientation of a route
+     * @param route the id of the route
+     * @return the orientation of the route, or null if the route is neither horizontal nor
+     * vertical
+     */
+    public Orientation getOrientation(int route) {
+        StationModel origin = this.stations[this.routeOrigins[route]];
+        StationModel destination = this.stations[this.routeDestinations[route]];
+        if(origin.getCol() == destination.getCol()) {
+            return Orientation.VERTICAL;
+        }
+        else if(origin.getRow() == destination.getRow()) {
+            return Orientation.HORIZONTAL;
+        }
+        return null;
+    }
+
+    /**
+     * Accessor for the edges of the map a route touches
+     * @param route the id of the route
+     * @return the BaronNetwork NORTH, SOUTH, EAST and WEST bits of the edges the route touches
+     */
+    public int getEdges(int route) {
+        return this.routeEdges[route];
+    }
+
+    /**
+     * Looks up what is at a location on the map. A station is returned as -(id + 1) and a
+     * track as the id of its route + 1.
+     * @param row the row of the location
+     * @param col the column of the location
+     * @return 0 if the location is empty or off the map, otherwise the encoded station or route
+     */
+    public int getCell(int row, int col) {
+        if(row < 0 || row >= this.rows || col < 0 || col >= this.cols) {
+            return 0;
+        }
+        return this.cells[row * this.cols + col];
+    }
+
+    /**
+     * Accessor for the graph of stations and the routes connecting them
+     * @return the station graph
+     */
+    public Graph getGraph() {
+        return this.graph;
+    }
+
+    /**
+     * Groups the routes by length, so that the routes of one length can be listed without
+     * searching through every route. The routes of length n are stored from lengthStarts[n]
+     * up to lengthStarts[n + 1].
+     */
+    private void buildLengthIndex() {
+        this.lengthStarts = new int[this.longestRoute + 2];
+        for(int length: this.routeLengths) {
+            this.lengthStarts[length + 1]++;
+        }
+        for(int length = 1; length < this.lengthStarts.length; length++) {
+            this.lengthStarts[length] += this.lengthStarts[length - 1];
+        }
+        this.routesByLength = new int[this.routeLengths.length];
+        int[] next = this.lengthStarts.clone();
+        for(int i = 0; i < this.routeLengths.length; i++) {
+            this.routesByLength[next[this.routeLengths[i]]++] = i;
+        }
+    }
+
+    /**
+     * Fills in the coordinate index so that every track and station can be found by its
+     * location without searching through the routes. Each cell is stored at row * cols + col.
+     */
+    private void buildIndex() {
+        for(int i = 0; i < this.stations.length; i++) {
+            index(this.stations[i].getRow(), this.stations[i].getCol(), -(i + 1));
+        }
+        for(int i = 0; i < this.routeOrigins.length; i++) {
+            Orientation orientation = getOrientation(i);
+            StationModel origin = this.stations[this.routeOrigins[i]];
+            for(int track = 1; track <= this.routeLengths[i]; track++) {
+                if(orientation == Orientation.VERTICAL) {
+                    index(origin.getRow() + track, origin.getCol(), i + 1);
+                }
+                else if(orientation == Orientation.HORIZONTAL) {
+                    index(origin.getRow(), origin.getCol() + track, i + 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Places a station or route in the coordinate index, ignoring locations off the map.
+     * @param row the row of the location
+     * @param col the column of the location
+     * @param cell the encoded station or route
+     */
+    private void index(int row, int col, int cell) {
+        if(row >= 0 && row < this.rows && col >= 0 && col < this.cols) {
+            this.cells[row * this.cols + col] = cell;
+        }
+    }
+
+    /**
+     * Works out the length of a route from the location of its origin and destination.
+     * @param origin the station at the origin of the route
+     * @param destination the station at the end of the route
+     * @return the number of tracks between the stations
+     */
+    private static int length(StationModel origin, StationModel destination) {
+        int length = 0;
+        if(origin.getCol() != destination.getCol()) {
+            length = Math.abs(origin.getCol() - destination.getCol());
+        }
+
+        else if(origin.getRow() != destination.getRow()) {
+            length = Math.abs(origin.getRow() - destination.getRow());
+        }
+
+        return Math.max(length - 1, 0);
+    }
+
+    /**
+     * Works out which edges of the map a route touches. The southern and eastern edges are the
+     * last row and column, and the northern and western edges are the first row and column
+     * that have a station.
+     * @param origin the station at the origin of the route
+     * @param destination the station at the end of the route
+     * @param north the northernmost row with a station
+     * @param west the westernmost column with a station
+     * @return the BaronNetwork NORTH, SOUTH, EAST and WEST bits of the edges the route touches
+     */
+    private int edges(StationModel origin, StationModel destination, int north, int west) {
+        int edges = 0;
+        if(origin.getRow() == north) {
+            edges |= BaronNetwork.NORTH;
+        }
+        if(destination.getRow() == this.rows - 1) {
+            edges |= BaronNetwork.SOUTH;
+        }
+        if(destination.getCol() == this.cols - 1) {
+            edges |= BaronNetwork.EAST;
+        }
+        if(origin.getCol() == west) {
+            edges |= BaronNetwork.WEST;
+        }
+        return edges;
+    }
+}
@@ -0,0 +1,361 @@
+package student;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Checks a map for problems that would stop it from being played, and reports every problem
+ * it finds rather than stopping at the first one. A map is checked for:
+ * <ul>
+ *     <li>two stations with the same number</li>
+ *     <li>stations with a negative row or column</li>
+ *     <li>two stations in the same place</li>
+ *     <li>routes that start and end at the same station</li>
+ *     <li>diagonal routes, which have no tracks</li>
+ *     <li>routes whose origin is south or east of their destination</li>
+ *     <li>tracks that run into a station or into the tracks of another route</li>
+ * </ul>
+ * The map is split into bands of rows. Each band marks its stations and the tracks of every
+ * route passing through it in an index of its own cells, so every cell is visited once, and
+ * large maps have their bands checked in parallel.
+ */
+public class MapValidator {
+    private static final int BAND_ROWS = 256;
+    private static final int SEQUENTIAL_CELLS = 1 << 16;
+
+    private int[] stationNumbers;
+    private int[] stationRows;
+    private int[] stationCols;
+    private int[] routeOrigins;
+    private int[] routeDestinations;
+    private int rows;
+    private int cols;
+
+    private int bandCount;
+    private int[] bandStart;
+    private int[] bandRoutes;
+    private int[] bandStationStart;
+    private int[] bandStations;
+
+    /**
+     * Constructor for a validator of a map read from a map file.
+     * @param stationNumbers the number each station was given in the map file
+     * @param stationRows the row of each station
+     * @param stationCols the column of each station
+     * @param routeOrigins the id of the origin station of each route
+     * @param routeDestinations the id of the destination station of each route
+     */
+    public MapValidator(int[] stationNumbers, int[] stationRows, int[] stationCols,
+                        int[] routeOrigins, int[] routeDestinations) {
+        this.stationNumbers = stationNumbers;
+        this.stationRows = stationRows;
+        this.stationCols = stationCols;
+        this.routeOrigins = routeOrigins;
+        this.routeDestinations = routeDestinations;
+    }
+
+    /**
+     * Checks the whole map.
+     * @return a description of every problem found, empty if the map is valid
+     */
+    public List<String> validate() {
+        List<String> problems = new ArrayList<>();
+        StationIndex index = new StationIndex(this.stationNumbers.length);
+        for(int i = 0; i < this.stationNumbers.length; i++) {
+            if(index.put(this.stationNumbers[i], i) >= 0) {
+                problems.add(station(i) + " is listed twice");
+            }
+        }
+
+        long rows = 0;
+        long cols = 0;
+        for(int i = 0; i < this.stationNumbers.length; i++) {
+            if(this.stationRows[i] < 0 || this.stationCols[i] < 0) {
+                problems.add(station(i) + " is off the map at " + location(this.stationRows[i], this.stationCols[i]));
+            }
+            rows = Math.max(rows, this.stationRows[i] + 1L);
+            cols = Math.max(cols, this.stationCols[i] + 1L);
+        }
+        if(rows == 0 || cols == 0) {
+            return problems;
+        }
+        String tooBig = MapTopology.checkSize(rows, cols);
+        if(tooBig != null) {
+            problems.add(tooBig);
+            return problems;
+        }
+        this.rows = (int)rows;
+        this.cols = (int)cols;
+
+        buildBands();
+        BandCheck check = new BandCheck(0, this.bandCount);
+        if((long)this.rows * this.cols <= SEQUENTIAL_CELLS) {
+            problems.addAll(check.compute());
+        }
+        else {
+            problems.addAll(ForkJoinPool.commonPool().invoke(check));
+        }
+        return problems;
+    }
+
+    /**
+     * Sorts the stations and routes into the bands of rows they fall in. A station belongs to
+     * the band holding its row, and a route belongs to every band between its two ends, so
+     * each band can be checked without looking at the rest of the map.
+     */
+    private void buildBands() {
+        this.bandCount = (this.rows + BAND_ROWS - 1) / BAND_ROWS;
+        this.bandStart = new int[this.bandCount + 1];
+        this.bandStationStart = new int[this.bandCount + 1];
+
+        for(int i = 0; i < this.stationNumbers.length; i++) {
+            if(this.stationRows[i] >= 0 && this.stationCols[i] >= 0) {
+                this.bandStationStart[this.stationRows[i] / BAND_ROWS + 1]++;
+            }
+        }
+        for(int i = 0; i < this.routeOrigins.length; i++) {
+            for(int band = firstBand(i); band <= lastBand(i); band++) {
+                this.bandStart[band + 1]++;
+            }
+        }
+        for(int band = 0; band < this.bandCount; band++) {
+            this.bandStart[band + 1] += this.bandStart[band];
+            this.bandStationStart[band + 1] += this.bandStationStart[band];
+        }
+
+        int[] next = Arrays.copyOf(this.bandStationStart, this.bandCount);
+        this.bandStations = new int[this.bandStationStart[this.bandCount]];
+        for(int i = 0; i < this.stationNumbers.length; i++) {
+            if(this.stationRows[i] >= 0 && this.stationCols[i] >= 0) {
+                this.bandStations[next[this.stationRows[i] / BAND_ROWS]++] = i;
+            }
+        }
+        next = Arrays.copyOf(this.bandStart, this.bandCount);
+        this.bandRoutes = new int[this.bandStart[this.bandCount]];
+        for(int i = 0; i < this.routeOrigins.length; i++) {
+            for(int band = firstBand(i); band <= lastBand(i); band++) {
+                this.bandRoutes[next[band]++] = i;
+            }
+        }
+    }
+
+    /**
+     * Finds the first band of rows a route is in.
+     * @param route the id of the route
+     * @return the band holding the northern end of the route
+     */
+    private int firstBand(int route) {
+        int row = Math.min(this.stationRows[this.routeOrigins[route]], this.stationRows[this.routeDestinations[route]]);
+        return Math.max(row, 0) / BAND_ROWS;
+    }
+
+    /**
+     * Finds the last band of rows a route is in.
+     * @param route the id of the route
+     * @return the band holding the southern end of the route, or one less than the first band
+     * if the route is entirely off the map
+     */
+    private int lastBand(int route) {
+        int row = Math.max(this.stationRows[this.routeOrigins[route]], this.stationRows[this.routeDestinations[route]]);
+        return row < 0 ? -1 : row / BAND_ROWS;
+    }
+
+    /**
+     * Checks everything about a route that does not depend on the rest of the map.
+     * @param route the id of the route
+     * @param problems the list the problems are added to
+     * @return true if the route has tracks that should be placed on the map, false if not
+     */
+    private boolean checkRoute(int route, List<String> problems) {
+        int origin = this.routeOrigins[route];
+        int destination = this.routeDestinations[route];
+        if(origin == destination) {
+            problems.add("the " + route(route) + " starts and ends at the same station");
+            return false;
+        }
+        boolean vertical = this.stationCols[origin] == this.stationCols[destination];
+        boolean horizontal = this.stationRows[origin] == this.stationRows[destination];
+        if(!vertical && !horizontal) {
+            problems.add("the " + route(route) + " is diagonal");
+            return false;
+        }
+        if((vertical && this.stationRows[origin] > this.stationRows[destination])
+                || (horizontal && this.stationCols[origin] > this.stationCols[destination])) {
+            problems.add("the " + route(route) + " runs from south to north or east to west");
+        }
+        return true;
+    }
+
+    /**
+     * Describes a station for a problem report.
+     * @param station the id of the station
+     * @return a description of the station
+     */
+    private String station(int station) {
+        return "station " + this.stationNumbers[station];
+    }
+
+    /**
+     * Describes a route for a problem report.
+     * @param route the id of the route
+     * @return a description of the route
+     */
+    private String route(int route) {
+        return "route from " + station(this.routeOrigins[route]) + " to " + station(this.routeDestinations[route]);
+    }
+
+    /**
+     * Describes a location for a problem report.
+     * @param row the row of the location
+     * @param col the column of the location
+     * @return a description of the location
+     */
+    private static String location(int row, int col) {
+        return "(" + row + ", " + col + ")";
+    }
+
+    /**
+     * Checks a range of bands, splitting the range in half until there is only one band left.
+     */
+    private class BandCheck extends RecursiveTask<List<String>> {
+        private static final long serialVersionUID = 1L;
+
+        private int first;
+        private int end;
+
+        /**
+         * Constructor for a check of a range of bands.
+         * @param first the first band to check
+         * @param end one past the last band to check
+         */
+        private BandCheck(int first, int end) {
+            this.first = first;
+            this.end = end;
+        }
+
+        /**
+         * Checks the bands, in parallel if there is more than one.
+         * @return every problem found in the bands, in band order
+         */
+        @Override
+        protected List<String> compute() {
+            if(this.end - this.first == 1) {
+                return checkBand(this.first);
+            }
+            int middle = (this.first + this.end) >>> 1;
+            BandCheck north = new BandCheck(this.first, middle);
+            north.fork();
+            List<String> problems = new BandCheck(middle, this.end).compute();
+            List<String> northProblems = north.join();
+            northProblems.addAll(problems);
+            return northProblems;
+        }
+
+        /**
+         * Checks one band of rows. Stations are marked in the band's cells as -(id + 1) and
+         * tracks as their route id + 1, and a problem is reported whenever a cell that is
+         * already marked is marked again.
+         * @param band the band to check
+         * @return every problem found in the band
+         */
+        private List<String> checkBand(int band) {
+            List<String> problems = new ArrayList<>();
+            int top = band * BAND_ROWS;
+            int bottom = Math.min(top + BAND_ROWS, rows);
+            int[] cells = new int[(bottom - top) * cols];
+
+            for(int i = bandStationStart[band]; i < bandStationStart[band + 1]; i++) {
+                int station = bandStations[i];
+                int cell = (stationRows[station] - top) * cols + stationCols[station];
+                if(cells[cell] != 0) {
+                    problems.add(station(-cells[cell] - 1) + " and " + station(station) + " are both at "
+                            + location(stationRows[station], stationCols[station]));
+                }
+                else {
+                    cells[cell] = -(station + 1);
+                }
+            }
+
+            for(int i = bandStart[band]; i < bandStart[band + 1]; i++) {
+                int route = bandRoutes[i];
+                //route problems are reported by the band holding the northern end of the route
+                boolean placed = band == firstBand(route) ? checkRoute(route, problems)
+                        : isStraight(route);
+                if(placed) {
+                    placeTracks(route, top, bottom, cells, problems);
+                }
+            }
+            return problems;
+        }
+
+        /**
+         * Checks whether a route has tracks, without reporting anything.
+         * @param route the id of the route
+         * @return true if the route is horizontal or vertical
+         */
+        private boolean isStraight(int route) {
+            int origin = routeOrigins[route];
+            int destination = routeDestinations[route];
+            return origin != destination && (stationCols[origin] == stationCols[destination]
+                    || stationRows[origin] == stationRows[destination]);
+        }
+
+        /**
+         * Marks the tracks of a route that fall inside a band, reporting the first track that
+         * runs into something already there.
+         * @param route the id of the route
+         * @param top the first row of the band
+         * @param bottom one past the last row of the band
+         * @param cells the band's cells
+         * @param problems the list the problems are added to
+         */
+        private void placeTracks(int route, int top, int bottom, int[] cells, List<String> problems) {
+            int origin = routeOrigins[route];
+            int destination = routeDestinations[route];
+            int north = Math.min(stationRows[origin], stationRows[destination]);
+            int south = Math.max(stationRows[origin], stationRows[destination]);
+            int west = Math.min(stationCols[origin], stationCols[destination]);
+            int east = Math.max(stationCols[origin], stationCols[destination]);
+
+            //the tracks are the cells strictly between the two stations
+            if(north == south) {
+                for(int col = Math.max(west + 1, 0); col < east; col++) {
+                    if(!placeTrack(route, north, col, top, cells, problems)) {
+                        return;
+                    }
+                }
+            }
+            else if(west >= 0) {
+                for(int row = Math.max(north + 1, top); row < Math.min(south, bottom); row++) {
+                    if(!placeTrack(route, row, west, top, cells, problems)) {
+                        return;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Marks one track of a route, reporting it if it runs into something already there.
+         * @param route the id of the route
+         * @param row the row of the track
+         * @param col the column of the track
+         * @param top the first row of the band
+         * @param cells the band's cells
+         * @param problems the list the problems are added to
+         * @return true if the track was placed, false if it ran into something
+         */
+        private boolean placeTrack(int route, int row, int col, int top, int[] cells, List<String> problems) {
+            int cell = (row - top) * cols + col;
+            if(cells[cell] != 0) {
+                String other = cells[cell] < 0 ? station(-cells[cell] - 1) : "the " + route(cells[cell] - 1);
+                problems.add("the " + route(route) + " runs into " + other + " at " + location(row, col));
+                return false;
+            }
+            cells[cell] = route + 1;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package view;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Watches a map file for changes using a {@link WatchService}, and calls
+ * back whenever the file has been changed. Editors often write a file in
+ * several steps, so the callback is only made once the file has stopped
+ * changing for a moment. The callback is made on the watcher's own thread.
+ */
+class MapWatcher {
+    /**
+     * How long the file must go without changing before the callback is
+     * made, in milliseconds.
+     */
+    private static final long QUIET_MILLIS = 100;
+
+    /**
+     * Called with the path of the map file whenever it has changed.
+     */
+    private final Consumer<Path> onChange;
+
+    /**
+     * The watch service for the directory holding the map file, or null if
+     * no file is being watched.
+     */
+    private WatchService watchService;
+
+    /**
+     * Creates a new map watcher.
+     *
+     * @param onChange Called with the path of the map file whenever it has
+     *                 changed.
+     */
+    MapWatcher(Consumer<Path> onChange) {
+        this.onChange = onChange;
+    }
+
+    /**
+     * Starts watching a map file, and stops watching any other file.
+     *
+     * @param file The map file to watch.
+     *
+     * @throws IOException If the file's directory cannot be watched.
+     */
+    synchronized void watch(Path file) throws IOException {
+        stop();
+        Path path = file.toAbsolutePath();
+        WatchService service = FileSystems.getDefault().newWatchService();
+        path.getParent().register(service,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        watchService = service;
+
+        Thread thread = new Thread(() -> run(service, path),
+                "Map Watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops watching the map file, if one is being watched.
+     */
+    synchronized void stop() {
+        if(watchService != null) {
+            try {
+                watchService.close();
+            }
+            catch(IOException ioe) {
+                // the watcher thread stops either way
+            }
+            watchService = null;
+        }
+    }
+
+    /**
+     * Waits for changes to the map file until the watch service is closed.
+     *
+     * @param service The watch service for the file's directory.
+     * @param file The map file.
+     */
+    private void run(WatchService service, Path file) {
+        try {
+            while(true) {
+                boolean changed = changed(service.take(), file);
+                // wait until the file stops changing
+                WatchKey key;
+                while((key = service.poll(QUIET_MILLIS,
+                        TimeUnit.MILLISECONDS)) != null) {
+                    changed |= changed(key, file);
+                }
+                if(changed) {
+                    onChange.accept(file);
+                }
+            }
+        }
+        catch(InterruptedException | ClosedWatchServiceException e) {
+            // stopped watching
+        }
+    }
+
+    /**
+     * Checks whether any of the events for a watch key are for the map file,
+     * and resets the key so that it reports further events.
+     *
+     * @param key The watch key.
+     * @param file The map file.
+     * @return True if the map file was created or changed.
+     */
+    private static boolean changed(WatchKey key, Path file) {
+        boolean changed = false;
+        for(WatchEvent<?> event : key.pollEvents()) {
+            if(file.getFileName().equals(event.context())) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+}
@@ -0,0 +1,220 @@
+package student;
+
+import model.Baron;
+import model.RailroadMap;
+import model.Route;
+import model.Station;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Writes maps in the Railroad Barons map file format straight to bytes. Numbers are written
+ * digit by digit into one buffer that is reused for every map written, and the buffer is only
+ * handed to the output stream when it fills up, so writing a map makes no strings except to
+ * encode the station names.
+ */
+public class MapWriter {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final byte[] ROUTES = "##ROUTES##".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[][] OWNERS = new byte[Baron.values().length][];
+
+    static {
+        for(Baron baron: Baron.values()) {
+            OWNERS[baron.ordinal()] = baron.name().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private byte[] buffer;
+    private int position;
+    private OutputStream out;
+
+    /**
+     * Constructor for a map writer.
+     */
+    public MapWriter() {
+        this.buffer = new byte[BUFFER_SIZE];
+    }
+
+    /**
+     * Writes a map, including the owner of every route.
+     * @param map the map to write
+     * @param out the stream to write the map to
+     * @throws IOException if the map cannot be written to the stream
+     */
+    public void write(RailroadMap map, OutputStream out) throws IOException {
+        this.out = out;
+        this.position = 0;
+        try {
+            if(map instanceof RailroadBaronsMapModel) {
+                writeModel((RailroadBaronsMapModel)map);
+            }
+            else {
+                writeRoutes(map);
+            }
+            flush();
+            this.out.flush();
+        }
+        finally {
+            this.out = null;
+            this.position = 0;
+        }
+    }
+
+    /**
+     * Writes a map read by a {@link MapMakerModel}. Stations and routes are written in id
+     * order, and stations keep the numbers they had in the map file.
+     * @param map the map to write
+     * @throws IOException if the map cannot be written to the stream
+     */
+    private void writeModel(RailroadBaronsMapModel map) throws IOException {
+        MapTopology topology = map.getTopology();
+
+        for(int i = 0; i < topology.getStationCount(); i++) {
+            Station station = topology.getStation(i);
+            writeStation(topology.getStationNumber(i), station);
+        }
+        writeBytes(ROUTES);
+        writeByte('\n');
+
+        for(int i = 0; i < topology.getRouteCount(); i++) {
+            writeRoute(topology.getStationNumber(topology.getOrigin(i)),
+                    topology.getStationNumber(topology.getDestination(i)), map.getOwner(i));
+        }
+    }
+
+    /**
+     * Writes any other kind of map from its routes. Stations are numbered in the order they
+     * are first seen at the end of a route.
+     * @param map the map to write
+     * @throws IOException if the map cannot be written to the stream
+     */
+    private void writeRoutes(RailroadMap map) throws IOException {
+        Map<Station, Integer> numbers = new IdentityHashMap<>();
+        for(Route route: map.getRoutes()) {
+            for(Station station: new Station[] {route.getOrigin(), route.getDestination()}) {
+                if(!numbers.containsKey(station)) {
+                    numbers.put(station, numbers.size());
+                    writeStation(numbers.get(station), station);
+                }
+            }
+        }
+        writeBytes(ROUTES);
+        writeByte('\n');
+
+        for(Route route: map.getRoutes()) {
+            writeRoute(numbers.get(route.getOrigin()), numbers.get(route.getDestination()), route.getBaron());
+        }
+    }
+
+    /**
+     * Writes a station line: the station number, row, column and name.
+     * @param number the station's number in the map file
+     * @param station the station
+     * @throws IOException if the buffer cannot be written to the stream
+     */
+    private void writeStation(int number, Station station) throws IOException {
+        writeInt(number);
+        writeByte(' ');
+        writeInt(station.getRow());
+        writeByte(' ');
+        writeInt(station.getCol());
+        writeByte(' ');
+        writeBytes(station.getName().getBytes(StandardCharsets.UTF_8));
+        writeByte('\n');
+    }
+
+    /**
+     * Writes a route line: the numbers of the origin and destination stations and the owner.
+     * @param origin the number of the origin station
+     * @param destination the number of the destination station
+     * @param owner the baron that owns the route
+     * @throws IOException if the buffer cannot be written to the stream
+     */
+    private void writeRoute(int origin, int destination, Baron owner) throws IOException {
+        writeInt(origin);
+        writeByte(' ');
+        writeInt(destination);
+        writeByte(' ');
+        writeBytes(OWNERS[owner.ordinal()]);
+        writeByte('\n');
+    }
+
+    /**
+     * Writes a whole number in decimal.
+     * @param value the number
+     * @throws IOException if the buffer cannot be written to the stream
+     */
+    private void writeInt(int value) throws IOException {
+        if(this.buffer.length - this.position < 11) {
+            flush();
+        }
+        long remaining = value;
+        if(remaining < 0) {
+            this.buffer[this.position++] = '-';
+            remaining = -remaining;
+        }
+        int end = this.position + digits(remaining);
+        int digit = end;
+        do {
+            this.buffer[--digit] = (byte)('0' + remaining % 10);
+            remaining /= 10;
+        } while(remaining > 0);
+        this.position = end;
+    }
+
+    /**
+     * Counts the digits in a number.
+     * @param value the number, which is not negative
+     * @return the number of decimal digits
+     */
+    private static int digits(long value) {
+        int digits = 1;
+        while(value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    /**
+     * Writes a single byte.
+     * @param b the byte
+     * @throws IOException if the buffer cannot be written to the stream
+     */
+    private void writeByte(int b) throws IOException {
+        if(this.position == this.buffer.length) {
+            flush();
+        }
+        this.buffer[this.position++] = (byte)b;
+    }
+
+    /**
+     * Writes some bytes, going straight to the stream if there are more than fit in the buffer.
+     * @param bytes the bytes
+     * @throws IOException if the bytes cannot be written to the stream
+     */
+    private void writeBytes(byte[] bytes) throws IOException {
+        if(this.buffer.length - this.position < bytes.length) {
+            flush();
+            if(bytes.length > this.buffer.length) {
+                this.out.write(bytes);
+                return;
+            }
+        }
+        System.arraycopy(bytes, 0, this.buffer, this.position, bytes.length);
+        this.position += bytes.length;
+    }
+
+    /**
+     * Hands everything in the buffer to the stream.
+     * @throws IOException if the buffer cannot be written to the stream
+     */
+    private void flush() throws IOException {
+        this.out.write(this.buffer, 0, this.position);
+        this.position = 0;
+    }
+}
@@ -3,15 +3,16 @@ package student;
 import model.Card;
 import model.Deck;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * Cards in a Railroad Barons game are dealt to each Player in pairs. This class is used to hold one such pair of cards.
  * @author Lauren Baldino
  */
 public class PairModel implements model.Pair {
-    private List<Card> cards;
+    /**
+     * A pair with no cards in it, used when no cards have been dealt.
+     */
+    public static final PairModel NO_CARDS = new PairModel(Card.NONE, Card.NONE);
+
     private Card firstCard;
     private Card secondCard;
 
@@ -21,38 +22,25 @@ public class PairModel implements model.Pair {
      * @param secondCard the second card in the pair
      * */
     public PairModel(Card firstCard, Card secondCard) {
-        this.cards = new ArrayList<>();
         this.firstCard = firstCard;
         this.secondCard = secondCard;
-        cards.add(firstCard);
-        cards.add(secondCard);
     }
 
+    /**
+     * Accessor for the first card in the pair
+     * @return Returns the first card in the pair. Note that, if the game deck is empty, the value of this card may be Card.NONE.
+     */
     @Override
     public Card getFirstCard() {
-        /**
-         * Accessor for the first card in the pair
-         * @return Returns the first card in the pair. Note that, if the game deck is empty, the value of this card may be Card.NONE.
-         */
-        if(cards.size() == 0) {
-            return Card.NONE;
-        }
-        else {
-            return this.firstCard;
-        }
+        return this.firstCard;
     }
 
+    /**
+     * Accessor for the second card in the pair
+     * @return Returns the second card in the pair. Note that, if the game deck is empty, the value of this card may be Card.NONE.
+     */
     @Override
     public Card getSecondCard() {
-        /**
-         * Accessor for the second card in the pair
-         * @return Returns the second card in the pair. Note that, if the game deck is empty, the value of this card may be Card.NONE.
-         */
-        if(cards.size() == 0) {
-            return Card.NONE;
-        }
-        else {
-            return this.secondCard;
-        }
+        return this.secondCard;
     }
 }
@@ -0,0 +1,75 @@
+package student;
+
+import model.Card;
+import model.RailroadBaronsException;
+
+/**
+ * Decides which cards a player spends to claim a route. A route is paid for with cards of one
+ * color, plus one wild card if the player is one card short. The planner:
+ * <ul>
+ *     <li>never spends a wild card when the route can be paid for with one color alone, and</li>
+ *     <li>pays with the color that has the fewest cards that are still enough.</li>
+ * </ul>
+ * Paying from the smallest pile that is enough leaves the bigger piles alone, so the longest
+ * route the player can claim afterwards is as long as it can be. Only one count per color is
+ * looked at, so choosing a payment takes the same time however big the hand is.
+ */
+public class PaymentPlanner {
+    private static final Card[] COLORS = {Card.BLACK, Card.BLUE, Card.GREEN, Card.ORANGE, Card.PINK, Card.RED,
+            Card.WHITE, Card.YELLOW};
+
+    /**
+     * The planner only has static methods.
+     */
+    private PaymentPlanner() {
+    }
+
+    /**
+     * Chooses the color to pay for a route with.
+     * @param hand the player's hand
+     * @param length the length of the route
+     * @return the color to pay with, or NONE if the hand cannot pay for the route
+     */
+    public static Card chooseColor(Hand hand, int length) {
+        Card best = Card.NONE;
+        int fewest = Integer.MAX_VALUE;
+
+        //the smallest pile that is enough on its own
+        for(Card color: COLORS) {
+            int count = hand.count(color);
+            if(count >= length && count < fewest) {
+                best = color;
+                fewest = count;
+            }
+        }
+        if(best != Card.NONE || hand.count(Card.WILD) == 0) {
+            return best;
+        }
+
+        //otherwise a pile that is one short, topped up with a wild card
+        for(Card color: COLORS) {
+            if(hand.count(color) == length - 1) {
+                return color;
+            }
+        }
+        return Card.NONE;
+    }
+
+    /**
+     * Spends the cards to pay for a route from a hand.
+     * @param hand the player's hand
+     * @param length the length of the route
+     * @throws RailroadBaronsException if the hand cannot pay for the route
+     */
+    public static void pay(Hand hand, int length) throws RailroadBaronsException {
+        Card color = chooseColor(hand, length);
+        if(color == Card.NONE) {
+            throw new RailroadBaronsException("Not enough cards to claim a route of length " + length);
+        }
+        int colorCards = Math.min(hand.count(color), length);
+        hand.remove(color, colorCards);
+        if(colorCards < length) {
+            hand.remove(Card.WILD, length - colorCards);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package model;
 
 import java.util.Collection;
+import java.util.Map;
 
 /**
  * The interface for a class that represents a player in a
@@ -164,4 +165,20 @@ public interface Player {
      * false otherwise.
      */
     boolean canContinuePlaying(int shortestUnclaimedRoute);
+
+    /**
+     * Moves the player onto a new version of the
+     * {@linkplain RailroadMap map} the game is played on, e.g. after the map
+     * file has been edited. Each {@linkplain Route route} the player has
+     * claimed is replaced by its match on the new map, and a route that is
+     * no longer on the map is given up. The player's
+     * {@linkplain Card cards} are kept. By default the player's claimed
+     * routes are left as they are.
+     *
+     * @param map The new version of the {@link RailroadMap}.
+     * @param matches The {@link Route} on the new map for each {@link Route}
+     *                on the old map that is still there.
+     */
+    default void changeMap(RailroadMap map, Map<Route, Route> matches) {
+    }
 }
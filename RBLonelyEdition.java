@@ -5,6 +5,7 @@ import model.*;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Lonely edition of railroad barons, runs a game with one player and 3 computer players.
@@ -59,16 +60,12 @@ public class RBLonelyEdition implements RailroadBarons {
     @Override
     public void startAGameWith(RailroadMap map) {
         this.map = map;
-        ComputerModel player2 = new ComputerModel(Baron.BLUE, this.map, this);
-        ComputerModel player3 = new ComputerModel(Baron.YELLOW, this.map, this);
-        ComputerModel player4 = new ComputerModel(Baron.GREEN, this.map, this);
-        players.add(player2);
-        players.add(player3);
-        players.add(player4);
+        addComputerPlayers();
         for(Player player: this.players) {
             player.reset(this.getStartHand());
         }
         this.claimedRoutes = new ArrayList<>();
+        startPlayersOn(map);
         Pair pair = new PairModel(deck.drawACard(), deck.drawACard());
         this.currentPlayer.startTurn(pair);
         for(RailroadBaronsObserver o: this.observers) {
@@ -87,16 +84,12 @@ public class RBLonelyEdition implements RailroadBarons {
     @Override
     public void startAGameWith(RailroadMap map, Deck deck) {
         this.map = map;
-        ComputerModel player2 = new ComputerModel(Baron.BLUE, this.map, this);
-        ComputerModel player3 = new ComputerModel(Baron.YELLOW, this.map, this);
-        ComputerModel player4 = new ComputerModel(Baron.GREEN, this.map, this);
-        players.add(player2);
-        players.add(player3);
-        players.add(player4);
+        addComputerPlayers();
         for(Player player: this.players) {
             player.reset(this.getStartHand());
         }
         this.claimedRoutes = new ArrayList<>();
+        startPlayersOn(map);
         this.deck = deck;
         Pair pair = new PairModel(deck.drawACard(), deck.drawACard());
         this.currentPlayer.startTurn(pair);
@@ -105,6 +98,63 @@ public class RBLonelyEdition implements RailroadBarons {
         }
     }
 
+    /**
+     * Replaces the computer players from the last game with three new ones on the new map, so
+     * starting another game does not keep adding players. The human player goes first.
+     */
+    private void addComputerPlayers() {
+        this.players.removeIf(player -> player instanceof ComputerModel);
+        this.currentPlayer = this.players.get(0);
+        ComputerModel player2 = new ComputerModel(Baron.BLUE, this.map, this);
+        ComputerModel player3 = new ComputerModel(Baron.YELLOW, this.map, this);
+        ComputerModel player4 = new ComputerModel(Baron.GREEN, this.map, this);
+        players.add(player2);
+        players.add(player3);
+        players.add(player4);
+    }
+
+    /**
+     * Starts the human and computer players off on the map. The map may already have routes
+     * claimed, e.g. when a game is picked up again from its claim log, so each player is given
+     * the routes their baron owns along with the points and pieces for them.
+     * @param map The {@link RailroadMap} the game is played on.
+     */
+    private void startPlayersOn(RailroadMap map) {
+        for(Player player: this.players) {
+            if(player instanceof ComputerModel) {
+                ((ComputerModel)player).startOn(map);
+            }
+            else {
+                ((PlayerModel)player).startOn(map);
+            }
+        }
+    }
+
+    /**
+     * Swaps the map the game is played on for a new version of it without starting a new game,
+     * so the deck, the computer players, every hand and whose turn it is all stay the same. The
+     * claimed routes, the game's and each player's, are moved onto their matches on the new map,
+     * and the computer players carry on claiming routes on the new map.
+     * @param map The new version of the {@link RailroadMap}, already claimed as the old one was.
+     * @param matches The {@link Route} on the new map for each route on the old map that is
+     *                still there.
+     */
+    @Override
+    public void changeMap(RailroadMap map, Map<Route, Route> matches) {
+        this.map = map;
+        List<Route> kept = new ArrayList<>();
+        for(Route route: this.claimedRoutes) {
+            Route match = matches.get(route);
+            if(match != null) {
+                kept.add(match);
+            }
+        }
+        this.claimedRoutes = kept;
+        for(Player player: this.players) {
+            player.changeMap(map, matches);
+        }
+    }
+
     /**
      * Accessor for the game's map to be used by the computer player.
      * @return the map.
@@ -221,13 +271,7 @@ public class RBLonelyEdition implements RailroadBarons {
      */
     @Override
     public boolean gameIsOver() {
-        boolean over = true;
-        for(Route route: this.getRailroadMap().getRoutes()) {
-            if(route.getBaron().equals(Baron.UNCLAIMED)) {
-                over =  false;
-            }
-        }
-        return over;
+        return this.getRailroadMap().getNumberOfUnclaimedRoutes() == 0;
     }
 
     /**
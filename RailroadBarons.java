@@ -1,6 +1,7 @@
 package model;
 
 import java.util.Collection;
+import java.util.Map;
 
 /**
  * The interface for a Railroad Barons game. The main entry point into the
@@ -67,6 +68,24 @@ public interface RailroadBarons {
      */
     void startAGameWith(RailroadMap map, Deck deck);
 
+    /**
+     * Swaps the {@linkplain RailroadMap map} the current game is played on
+     * for a new version of it, e.g. after the map file has been edited,
+     * without starting a new game. The routes on the new map should already
+     * be claimed by the same {@linkplain Baron barons} as their matches on the
+     * old map. Implementations should keep the {@linkplain Deck deck}, the
+     * {@linkplain Player players} and whose turn it is, and
+     * {@linkplain Player#changeMap(RailroadMap, Map) move every player} onto
+     * the new map. By default a new game is started on the new map.
+     *
+     * @param map The new version of the {@link RailroadMap}.
+     * @param matches The {@link Route} on the new map for each {@link Route}
+     *                on the old map that is still there.
+     */
+    default void changeMap(RailroadMap map, Map<Route, Route> matches) {
+        startAGameWith(map);
+    }
+
     /**
      * Returns the {@linkplain RailroadMap map} currently being used for play.
      * If a game is not in progress, this may be null!
@@ -1,13 +1,19 @@
 package view;
 
+import javafx.application.Platform;
+import javafx.concurrent.Task;
+import javafx.concurrent.WorkerStateEvent;
 import javafx.scene.control.Alert;
 import model.*;
 
-import java.io.FileInputStream;
-import java.io.IOException;
-import java.io.InputStream;
 import java.lang.reflect.Constructor;
+import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static java.lang.Class.forName;
 
@@ -20,6 +26,12 @@ import static java.lang.Class.forName;
  */
 public class RailroadBaronsController implements RailroadMapObserver,
         RailroadBaronsObserver, PlayerObserver {
+    /**
+     * The number of parsed maps kept so that new games on them can start
+     * without reading the map file again.
+     */
+    private static final int MAP_CACHE_SIZE = 8;
+
     /**
      * Displays the current status of the game to the player including the
      * score board, deck/dealt cards, and the player's hand.
@@ -45,6 +57,41 @@ public class RailroadBaronsController implements RailroadMapObserver,
      */
     private MapMaker mapMaker;
 
+    /**
+     * The maps that games have been started on, so that starting another
+     * game on the same map does not parse the map file again.
+     */
+    private final MapCache mapCache;
+
+    /**
+     * The background thread that maps are loaded on, so that loading a large
+     * map does not freeze the UI.
+     */
+    private final ExecutorService mapLoader;
+
+    /**
+     * The map that is currently being loaded in the background, or the
+     * directory of maps being listed, or null if neither is happening.
+     */
+    private Task<?> loading;
+
+    /**
+     * Watches the file that the current map was loaded from while in
+     * development mode.
+     */
+    private final MapWatcher mapWatcher;
+
+    /**
+     * The file that the current map was loaded from, or null if no map has
+     * been loaded.
+     */
+    private Path mapPath;
+
+    /**
+     * Whether the current map is reloaded whenever its file changes.
+     */
+    private boolean developmentMode;
+
     /**
      * The implementation of the {@link RailroadBarons} interface that is ued
      * to run games. The controller loads the specific implementation by class
@@ -52,6 +99,13 @@ public class RailroadBaronsController implements RailroadMapObserver,
      */
     private RailroadBarons game;
 
+    /**
+     * Records the routes claimed in the current game so that it can be
+     * picked up again if it stops part way through, or null if claims are
+     * not being recorded.
+     */
+    private ClaimRecorder claims;
+
     /**
      * Creates a new controller for use by the Railroad Barons UI. The
      * controller also creates and configured most of the essential parts of
@@ -61,6 +115,13 @@ public class RailroadBaronsController implements RailroadMapObserver,
         playerControl = new PlayerControlPane(this);
         railroadMapPane = new RailroadMapPane(this);
         console = new TextAreaConsole();
+        mapCache = new MapCache(MAP_CACHE_SIZE);
+        mapLoader = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Map Loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        mapWatcher = new MapWatcher(this::mapFileChanged);
         console.setStyle(RailroadBaronsView.getFontCss(12, "black"));
     }
 
@@ -88,6 +149,7 @@ public class RailroadBaronsController implements RailroadMapObserver,
      */
     void loadMapMaker(String className) throws RailroadBaronsException {
         mapMaker = loadGameClass(className, MapMaker.class);
+        mapCache.clear();
     }
 
     /**
@@ -171,7 +233,11 @@ public class RailroadBaronsController implements RailroadMapObserver,
 
     /**
      * Loads the {@linkplain RailroadMap map} to which the specified path
-     * refers and uses it to start a new game of Railroad Barons!
+     * refers and uses it to start a new game of Railroad Barons! The map is
+     * loaded through {@link MapMaker#readMap(java.nio.file.Path)} so that the
+     * map maker can read the file directly rather than through a stream.
+     * Maps are kept in a {@link MapCache}, so a map that has been played
+     * before is copied rather than read again.
      *
      * @param path The path to the Railroad Barons map file that should be
      *             loaded to start a new game.
@@ -185,21 +251,335 @@ public class RailroadBaronsController implements RailroadMapObserver,
                     "MapMakerModel has not been configured!");
         }
 
-        try(InputStream in = new FileInputStream(path)) {
-            RailroadMap map = mapMaker.readMap(in);
-            console.write("Loaded map '" + path + "'!");
-            map.addObserver(this);
-            game.startAGameWith(map);
-            railroadMapPane.setRailroadMap(map);
-            playerControl.setNumberOfCardsRemaining(
-                    game.numberOfCardsRemaining());
+        RailroadMap map = mapCache.load(mapMaker, Paths.get(path));
+        startAGameWith(path, map,
+                railroadMapPane.buildSpaces(map, null), null);
+    }
+
+    /**
+     * Checks whether a game on the {@linkplain RailroadMap map} to which the
+     * specified path refers stopped before it was over, so that the user can
+     * be asked whether to {@linkplain #resumeMap(String) pick it up again}
+     * rather than start a new game on the map.
+     *
+     * @param path The path to a Railroad Barons map file.
+     * @return True if there is a game on the map that can be picked up again.
+     */
+    boolean hasUnfinishedGame(String path) {
+        return mapMaker != null &&
+                mapMaker.hasRecordedClaims(Paths.get(path).toAbsolutePath());
+    }
+
+    /**
+     * Picks up a game on the {@linkplain RailroadMap map} to which the
+     * specified path refers that stopped part way through. The
+     * {@linkplain MapMaker map maker} reads the map with every
+     * {@linkplain Route route} claimed that had been claimed when the game
+     * stopped, and a new game is started on it in which every
+     * {@linkplain Player player} holds the routes their baron had claimed,
+     * with the points and pieces for them. The players' hands and whose turn
+     * it was are not recorded, so they start again.
+     *
+     * @param path The path to the Railroad Barons map file that the game was
+     *             started from.
+     *
+     * @throws RailroadBaronsException If the map maker cannot pick up games,
+     * or the map or the record of its claims cannot be read.
+     */
+    void resumeMap(String path) throws RailroadBaronsException {
+        if(mapMaker == null) {
+            throw new RailroadBaronsException(
+                    "MapMakerModel has not been configured!");
+        }
+
+        cancelLoadingMap();
+        ClaimRecorder recorder = mapMaker.resumeClaims(
+                Paths.get(path).toAbsolutePath(), this::claimNotRecorded);
+        if(recorder == null) {
+            throw new RailroadBaronsException(
+                    "MapMakerModel cannot resume games!");
+        }
+        RailroadMap map = recorder.getMap();
+        startAGameWith(path, map, railroadMapPane.buildSpaces(map, null),
+                recorder);
+    }
+
+    /**
+     * Loads the {@linkplain RailroadMap map} to which the specified path
+     * refers on a background thread, and uses it to start a new game of
+     * Railroad Barons once it has loaded. Reading the map, building the model
+     * and building the panes that display the map all happen in a
+     * {@link MapLoadTask}; only swapping the new map into the UI happens on
+     * the JavaFX application thread. Any map that is still loading is
+     * cancelled.
+     *
+     * @param path The path to the Railroad Barons map file that should be
+     *             loaded to start a new game.
+     * @return The {@link MapLoadTask} loading the map, which reports its
+     * progress and may be cancelled.
+     *
+     * @throws RailroadBaronsException If no {@link MapMaker} has been loaded.
+     */
+    MapLoadTask loadMapInBackground(String path)
+            throws RailroadBaronsException {
+        if(mapMaker == null) {
+            throw new RailroadBaronsException(
+                    "MapMakerModel has not been configured!");
+        }
+
+        cancelLoadingMap();
+        MapLoadTask task = new MapLoadTask(mapCache, mapMaker,
+                Paths.get(path), railroadMapPane);
+        task.addEventHandler(WorkerStateEvent.WORKER_STATE_SUCCEEDED, e -> {
+            if(loading == task) {
+                loading = null;
+                startAGameWith(path, task.getValue(), task.getSpaces(),
+                        null);
+            }
+        });
+        task.addEventHandler(WorkerStateEvent.WORKER_STATE_FAILED, e -> {
+            if(loading == task) {
+                loading = null;
+            }
+        });
+        loading = task;
+        mapLoader.submit(task);
+        return task;
+    }
+
+    /**
+     * Lists the {@linkplain MapInfo maps} in the directory to which the
+     * specified path refers on a background thread, so that the user can
+     * choose one to play. The {@linkplain MapMaker map maker} keeps a catalog
+     * of the directory, so only map files that are new or have changed are
+     * read. Any map that is still loading is cancelled.
+     *
+     * @param directory The path to a directory of Railroad Barons map files.
+     * @return The {@link Task} listing the maps, which may be cancelled.
+     *
+     * @throws RailroadBaronsException If no {@link MapMaker} has been loaded.
+     */
+    Task<List<MapInfo>> listMapsInBackground(String directory)
+            throws RailroadBaronsException {
+        if(mapMaker == null) {
+            throw new RailroadBaronsException(
+                    "MapMakerModel has not been configured!");
+        }
+
+        cancelLoadingMap();
+        MapMaker maker = mapMaker;
+        Path path = Paths.get(directory).toAbsolutePath();
+        Task<List<MapInfo>> task = new Task<List<MapInfo>>() {
+            @Override
+            protected List<MapInfo> call() throws RailroadBaronsException {
+                updateMessage("Listing maps in " + path);
+                return maker.listMaps(path);
+            }
+        };
+        task.addEventHandler(WorkerStateEvent.WORKER_STATE_SUCCEEDED, e -> {
+            if(loading == task) {
+                loading = null;
+            }
+        });
+        task.addEventHandler(WorkerStateEvent.WORKER_STATE_FAILED, e -> {
+            if(loading == task) {
+                loading = null;
+            }
+        });
+        loading = task;
+        mapLoader.submit(task);
+        return task;
+    }
+
+    /**
+     * Cancels the map that is loading in the background, if there is one.
+     */
+    void cancelLoadingMap() {
+        if(loading != null) {
+            loading.cancel();
+            loading = null;
+        }
+    }
+
+    /**
+     * Starts a new game on a map that has been loaded, and displays the map.
+     * The claims made in the game are recorded by the given
+     * {@linkplain ClaimRecorder recorder}, or by a new one from the
+     * {@linkplain MapMaker map maker} if none is given, which is added as an
+     * observer of the game before the first turn starts so that it counts
+     * every turn. Any game that was being recorded stops being recorded.
+     *
+     * @param path The path to the map file the map was loaded from.
+     * @param map The {@link RailroadMap} on which the game is played.
+     * @param spaces The {@link SpacePane SpacePanes} that display the map.
+     * @param recorder The {@link ClaimRecorder} that is already recording
+     *                 claims on the map, or null to start a new one.
+     */
+    private void startAGameWith(String path, RailroadMap map,
+                                SpacePane[][] spaces,
+                                ClaimRecorder recorder) {
+        mapPath = Paths.get(path).toAbsolutePath();
+        if(developmentMode) {
+            watchMap();
+        }
+        console.write("Loaded map '" + path + "'!");
+        map.addObserver(this);
+        stopRecordingClaims();
+        claims = recorder != null ? recorder : recordClaims(map);
+        if(claims != null) {
+            game.addRailroadBaronsObserver(claims);
+        }
+        game.startAGameWith(map);
+        railroadMapPane.setRailroadMap(map, spaces);
+        playerControl.setNumberOfCardsRemaining(
+                game.numberOfCardsRemaining());
+    }
+
+    /**
+     * Asks the {@linkplain MapMaker map maker} to start recording the claims
+     * made on a new game. If the record cannot be started the game goes on
+     * without it, and the user is told that claims will not be saved.
+     *
+     * @param map The {@link RailroadMap} on which the game is played.
+     * @return The {@link ClaimRecorder}, or null if claims are not recorded.
+     */
+    private ClaimRecorder recordClaims(RailroadMap map) {
+        try {
+            return mapMaker.recordClaims(mapPath, map, this::claimNotRecorded);
+        }
+        catch(RailroadBaronsException e) {
+            console.write("Claims in this game will not be saved: " +
+                    e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Stops recording the claims made in the current game, if they are being
+     * recorded.
+     */
+    private void stopRecordingClaims() {
+        if(claims == null) {
+            return;
+        }
+        game.removeRailroadBaronsObserver(claims);
+        try {
+            claims.close();
+        }
+        catch(RailroadBaronsException e) {
+            console.write(e.getMessage());
+        }
+        claims = null;
+    }
+
+    /**
+     * Warns the user that a claim could not be recorded, and so would be
+     * lost if the game stopped now.
+     *
+     * @param message Why the claim could not be recorded.
+     */
+    private void claimNotRecorded(String message) {
+        console.write(message);
+
+        Alert alert = new Alert(Alert.AlertType.WARNING);
+        alert.setTitle("Claim not saved!");
+        alert.setContentText(message);
+        alert.show();
+    }
+
+    /**
+     * Turns development mode on or off. In development mode the file that
+     * the current map was loaded from is watched, and whenever it changes the
+     * map is read again and only the stations and routes that were added or
+     * removed are updated on the screen. Routes that have been claimed stay
+     * claimed if they are still in the map.
+     *
+     * @param on True to turn development mode on, false to turn it off.
+     */
+    void setDevelopmentMode(boolean on) {
+        developmentMode = on;
+        if(on && mapPath != null) {
+            watchMap();
+        }
+        else if(!on) {
+            mapWatcher.stop();
+        }
+    }
+
+    /**
+     * Starts watching the file that the current map was loaded from.
+     */
+    private void watchMap() {
+        try {
+            mapWatcher.watch(mapPath);
         }
         catch(IOException ioe) {
-            throw new RailroadBaronsException("Failed to load map: " +
+            console.write("Cannot watch map '" + mapPath + "': " +
                     ioe.getMessage());
         }
     }
 
+    /**
+     * Reads a map file that has changed. This is called on the
+     * {@linkplain MapWatcher map watcher's} thread, so the new map is read
+     * there, and only compared with the current map and applied on the
+     * JavaFX application thread, where the game is played.
+     *
+     * @param path The path to the map file that has changed.
+     */
+    private void mapFileChanged(Path path) {
+        try {
+            RailroadMap map = mapCache.load(mapMaker, path);
+            Platform.runLater(() -> reloadMap(path, map));
+        }
+        catch(RailroadBaronsException e) {
+            Platform.runLater(() -> console.write("Failed to reload map '" +
+                    path + "': " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Replaces the current map with a new version of it, carrying over the
+     * routes that have been claimed and updating only the parts of the
+     * {@linkplain RailroadMapPane map pane} that have changed. The game
+     * {@linkplain RailroadBarons#changeMap(RailroadMap, java.util.Map)
+     * carries on} on the new map with the same deck, players, hands and turn,
+     * and the claims on the new map are recorded if claims are being
+     * recorded.
+     *
+     * @param path The path to the map file the new version was read from.
+     * @param map The new version of the map.
+     */
+    private void reloadMap(Path path, RailroadMap map) {
+        RailroadMap current = game.getRailroadMap();
+        if(!developmentMode || !path.equals(mapPath) || current == null) {
+            return;
+        }
+        MapDiff diff = new MapDiff(current, map);
+        if(diff.isEmpty()) {
+            return;
+        }
+        diff.carryOverOwners();
+        current.removeObserver(this);
+        map.addObserver(this);
+        game.changeMap(map, diff.getMatches());
+        if(claims != null) {
+            try {
+                claims.changeMap(map);
+            }
+            catch(RailroadBaronsException e) {
+                stopRecordingClaims();
+                claimNotRecorded(e.getMessage());
+            }
+        }
+        railroadMapPane.updateRailroadMap(map, diff.getChangedSpaces());
+        playerControl.setNumberOfCardsRemaining(
+                game.numberOfCardsRemaining());
+        console.write("Reloaded map '" + path + "': " +
+                diff.getAddedRouteCount() + " routes added, " +
+                diff.getRemovedRouteCount() + " routes removed.");
+    }
+
     /**
      * Tests whether or not the current {@linkplain Player player} can claim
      * the {@linkplain Route route} at the specified location.
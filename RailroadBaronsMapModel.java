@@ -4,45 +4,53 @@ import model.*;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
 
 /**
- * Model for the Railroad map and its observers.
+ * Model for the Railroad map and its observers. The layout of the map comes from a
+ * {@link MapTopology} that may be shared with other games, and the only thing this map keeps
+ * for itself is the owner of each route, stored as one byte per route. The {@link Route} and
+ * {@link Track} objects handed out by this map are views over that state.
  * @author Ben Donahue
  */
 public class RailroadBaronsMapModel implements RailroadMap {
-    private int rows;
-    private int cols;
+    private static final Baron[] BARONS = Baron.values();
+
+    private MapTopology topology;
+    private byte[] owners;
     private List<RailroadMapObserver> observers;
-    private List<Route> routes;
-    private List<Route> southernMostRoutes;
-    private List<Route> easternMostRoutes;
-    private List<Route> northernMostRoutes;
-    private List<Route> westernMostRoutes;
-    private HashMap<Integer, Station> stations;
+    private RouteModel[] routes;
+    private List<Route> routeList;
+    private UnclaimedRouteTracker tracker;
+    private BaronNetwork[] networks;
+    private LongestTrack longestTrack;
 
     /**
-     * Builds a railroad map based of an amount of rows and columns
-     * @param rows the amount of rows the board will have
-     * @param cols the amount of columns the board will have
+     * Builds a railroad map for a new game on the given topology, with every route unclaimed.
+     * @param topology the layout of the map, which may be shared with other games
      */
-    public RailroadBaronsMapModel(int rows, int cols, List<Route> routes, HashMap<Integer, Station> stations) {
+    public RailroadBaronsMapModel(MapTopology topology) {
+        this.topology = topology;
+        this.owners = new byte[topology.getRouteCount()];
         this.observers = new ArrayList<>();
-        this.stations = stations;
-        this.routes = routes;
-        this.easternMostRoutes = new ArrayList<>();
-        this.southernMostRoutes = new ArrayList<>();
-        this.rows = rows;
-        this.cols = cols;
-
-        for(Route route: this.routes) {
-            if(route.getDestination().getRow() == this.rows - 1) {
-                this.southernMostRoutes.add(route);
-            }
+        this.routes = new RouteModel[topology.getRouteCount()];
+        this.tracker = new UnclaimedRouteTracker(topology, this.owners);
+        this.networks = new BaronNetwork[BARONS.length];
+    }
 
-            if(route.getDestination().getCol() == this.cols - 1) {
-                this.easternMostRoutes.add(route);
+    /**
+     * Builds a railroad map on the given topology with some routes already claimed, such as
+     * a map saved part way through a game. The routes are claimed one at a time so that
+     * everything the map keeps track of about claimed routes is brought up to date.
+     * @param topology the layout of the map, which may be shared with other games
+     * @param owners the owner of each route, by Baron ordinal
+     */
+    public RailroadBaronsMapModel(MapTopology topology, byte[] owners) {
+        this(topology);
+        for(int i = 0; i < owners.length; i++) {
+            if(owners[i] != Baron.UNCLAIMED.ordinal()) {
+                claim(i, BARONS[owners[i]]);
             }
         }
     }
@@ -76,7 +84,7 @@ public class RailroadBaronsMapModel implements RailroadMap {
      */
     @Override
     public int getRows() {
-        return this.rows;
+        return this.topology.getRows();
     }
 
     /**
@@ -85,7 +93,7 @@ public class RailroadBaronsMapModel implements RailroadMap {
      */
     @Override
     public int getCols() {
-        return this.cols;
+        return this.topology.getCols();
     }
 
     /**
@@ -98,19 +106,13 @@ public class RailroadBaronsMapModel implements RailroadMap {
      */
     @Override
     public Space getSpace(int row, int col) {
-        for(Route route: this.routes) {
-            for(Track track: route.getTracks()) {
-                if(track.getCol() == col && track.getRow() == row) {
-                    return track;
-                }
-            }
+        int cell = this.topology.getCell(row, col);
+        if(cell < 0) {
+            return this.topology.getStation(-cell - 1);
         }
-        Station station;
-        for(Integer key: this.stations.keySet()) {
-            station = this.stations.get(key);
-            if(station.getRow() == row && station.getCol() == col) {
-                return station;
-            }
+        else if(cell > 0) {
+            RouteModel route = getRoute(cell - 1);
+            return new TrackModel(route.getOrientation(), route, row, col);
         }
         return null;
     }
@@ -126,12 +128,9 @@ public class RailroadBaronsMapModel implements RailroadMap {
      */
     @Override
     public Route getRoute(int row, int col) {
-        for(Route route: routes) {
-            for (Track track : route.getTracks()) {
-                if (track.getRow() == row && track.getCol() == col) {
-                    return track.getRoute();
-                }
-            }
+        int cell = this.topology.getCell(row, col);
+        if(cell > 0) {
+            return getRoute(cell - 1);
         }
         return null;
     }
@@ -149,21 +148,50 @@ public class RailroadBaronsMapModel implements RailroadMap {
 
     /**
      * Checks the length of the shortest unclaimed route to later be used to determine if a player
-     * can continue playing.
-     * @return the length of the smallest route
+     * can continue playing. The tracker is updated as routes are claimed, so this does not
+     * search the routes.
+     * @return the length of the smallest unclaimed route, or -1 if there are none left
      */
     @Override
     public int getLengthOfShortestUnclaimedRoute() {
-        if(routes.size() > 0) {
-            Route smallest = routes.get(0);
-            for (Route route : routes) {
-                if (route.getLength() < smallest.getLength() && route.getBaron().equals(Baron.UNCLAIMED)) {
-                    smallest = route;
+        return this.tracker.getShortestLength();
+    }
+
+    /**
+     * Accessor for the number of routes that have not been claimed. Kept up to date as routes
+     * are claimed, so this does not search the routes.
+     * @return the number of unclaimed routes
+     */
+    @Override
+    public int getNumberOfUnclaimedRoutes() {
+        return this.tracker.getUnclaimedCount();
+    }
+
+    /**
+     * Lists the unclaimed routes whose lengths are in a set of lengths, such as the lengths a
+     * player has the cards and pieces to claim. Only the routes of those lengths are looked
+     * at, and lengths with no unclaimed routes left are skipped.
+     * @param lengths a mask with bit n set if routes of length n should be listed
+     * @return the unclaimed routes with those lengths, shortest first
+     */
+    public List<Route> getUnclaimedRoutes(long lengths) {
+        List<Route> unclaimed = new ArrayList<>();
+        long remaining = lengths;
+        while(remaining != 0) {
+            int length = Long.numberOfTrailingZeros(remaining);
+            remaining &= remaining - 1;
+            if(this.tracker.getUnclaimedCount(length) == 0) {
+                continue;
+            }
+            int count = this.topology.countRoutesOfLength(length);
+            for(int i = 0; i < count; i++) {
+                int route = this.topology.getRouteOfLength(length, i);
+                if(this.owners[route] == Baron.UNCLAIMED.ordinal()) {
+                    unclaimed.add(getRoute(route));
                 }
             }
-            return smallest.getLength();
         }
-        return -1;
+        return unclaimed;
     }
 
     /**
@@ -172,6 +200,191 @@ public class RailroadBaronsMapModel implements RailroadMap {
      */
     @Override
     public Collection<Route> getRoutes() {
-        return this.routes;
+        if(this.routeList == null) {
+            List<Route> list = new ArrayList<>(this.routes.length);
+            for(int i = 0; i < this.routes.length; i++) {
+                list.add(getRoute(i));
+            }
+            this.routeList = Collections.unmodifiableList(list);
+        }
+        return this.routeList;
+    }
+
+    /**
+     * Accessor for a route by id. The same route object is returned every time for a given id.
+     * @param route the id of the route
+     * @return the route
+     */
+    public RouteModel getRoute(int route) {
+        if(this.routes[route] == null) {
+            this.routes[route] = new RouteModel(this, route);
+        }
+        return this.routes[route];
+    }
+
+    /**
+     * Accessor for a station by id
+     * @param station the id of the station
+     * @return the station
+     */
+    public StationModel getStation(int station) {
+        return this.topology.getStation(station);
+    }
+
+    /**
+     * Returns a view of a single station and its neighbors.
+     * @param station the id of the station
+     * @return the vertex for the station
+     */
+    public VertexModel getVertex(int station) {
+        return new VertexModel(this, station);
+    }
+
+    /**
+     * Accessor for the owner of a route
+     * @param route the id of the route
+     * @return the baron that owns the route
+     */
+    public Baron getOwner(int route) {
+        return BARONS[this.owners[route]];
+    }
+
+    /**
+     * Copies the owner of every route, in a form that can be handed back to
+     * {@link #RailroadBaronsMapModel(MapTopology, byte[])}.
+     * @return the owner of each route, by Baron ordinal
+     */
+    public byte[] getOwners() {
+        return this.owners.clone();
+    }
+
+    /**
+     * Claims a route for a baron if it has not already been claimed, and updates everything
+     * the map keeps track of about claimed routes.
+     * @param route the id of the route
+     * @param claimant the baron claiming the route
+     * @return true if the route was claimed, false if it already had an owner
+     */
+    public boolean claim(int route, Baron claimant) {
+        if(this.owners[route] != Baron.UNCLAIMED.ordinal() || claimant == null
+                || claimant == Baron.UNCLAIMED) {
+            return false;
+        }
+        this.owners[route] = (byte)claimant.ordinal();
+        this.tracker.routeClaimed(this.topology.getLength(route));
+        getNetwork(claimant).union(this.topology.getOrigin(route), this.topology.getDestination(route),
+                this.topology.getEdges(route));
+        if(this.longestTrack != null) {
+            this.longestTrack.routeClaimed(claimant, route);
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether two stations are connected by track claimed by a baron.
+     * @param baron the baron whose track is followed
+     * @param a one of the stations
+     * @param b the other station
+     * @return true if the baron's claimed routes connect the two stations, false if not
+     */
+    public boolean areConnected(Baron baron, Station a, Station b) {
+        return getNetwork(baron).connected(((StationModel)a).getId(), ((StationModel)b).getId());
+    }
+
+    /**
+     * Checks whether a baron's claimed track connects the northern edge of the map to the
+     * southern edge.
+     * @param baron the baron whose track is followed
+     * @return true if the baron's network spans the map from north to south
+     */
+    public boolean spansNorthSouth(Baron baron) {
+        return getNetwork(baron).spansNorthSouth();
+    }
+
+    /**
+     * Checks whether a baron's claimed track connects the eastern edge of the map to the
+     * western edge.
+     * @param baron the baron whose track is followed
+     * @return true if the baron's network spans the map from east to west
+     */
+    public boolean spansEastWest(Baron baron) {
+        return getNetwork(baron).spansEastWest();
+    }
+
+    /**
+     * Accessor for the length of the longest continuous track a baron has claimed. Only the
+     * parts of the baron's network that changed since the last time are searched again. The
+     * search is exponential in the number of routes in a piece of the network in the worst
+     * case, so it is cut off after {@link LongestTrack#MAX_STEPS} steps per piece, and on a
+     * densely claimed network the result may then be shorter than the true longest track;
+     * {@link #isLongestTrackExact(Baron)} tells whether that happened.
+     * @param baron the baron whose track is followed
+     * @return the number of tracks in the baron's longest continuous track
+     */
+    public int getLongestTrack(Baron baron) {
+        return getLongestTrackEngine().getLongest(baron, getNetwork(baron));
+    }
+
+    /**
+     * Checks whether the length {@link #getLongestTrack(Baron)} gives for a baron is known to
+     * be the true length of their longest track, and not cut short by the step limit.
+     * @param baron the baron whose track is followed
+     * @return true if the baron's longest track length is exact
+     */
+    public boolean isLongestTrackExact(Baron baron) {
+        getLongestTrack(baron);
+        return this.longestTrack.isExact(baron);
+    }
+
+    /**
+     * Works out how long a baron's longest continuous track would be if they claimed a route,
+     * without claiming it, so that a computer player can weigh the routes it could claim.
+     * @param baron the baron whose track is followed
+     * @param route an unclaimed route on this map
+     * @return the number of tracks in the baron's longest continuous track with the route
+     */
+    public int getLongestTrackWith(Baron baron, Route route) {
+        return getLongestTrackEngine().getLongestWith(baron, getNetwork(baron), ((RouteModel)route).getId());
+    }
+
+    /**
+     * Accessor for the engine that works out longest tracks, which is only created once it
+     * is needed.
+     * @return the longest track engine for this map
+     */
+    private LongestTrack getLongestTrackEngine() {
+        if(this.longestTrack == null) {
+            this.longestTrack = new LongestTrack(this);
+        }
+        return this.longestTrack;
+    }
+
+    /**
+     * Accessor for the network of track claimed by a baron. Networks are only created once
+     * they are needed.
+     * @param baron the baron whose network to get
+     * @return the baron's network
+     */
+    public BaronNetwork getNetwork(Baron baron) {
+        if(this.networks[baron.ordinal()] == null) {
+            this.networks[baron.ordinal()] = new BaronNetwork(this.topology.getStationCount());
+        }
+        return this.networks[baron.ordinal()];
+    }
+
+    /**
+     * Accessor for the graph of stations and the routes connecting them
+     * @return the station graph
+     */
+    public Graph getGraph() {
+        return this.topology.getGraph();
+    }
+
+    /**
+     * Accessor for the layout of the map, which can be used to start more games on the same map
+     * @return the map's topology
+     */
+    public MapTopology getTopology() {
+        return this.topology;
     }
 }
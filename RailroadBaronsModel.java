@@ -73,6 +73,7 @@ public class RailroadBaronsModel implements model.RailroadBarons {
     public void startAGameWith(RailroadMap map) {
         this.map = map;
         this.claimedRoutes = new ArrayList<>();
+        startPlayersOn(map);
         Pair pair = new PairModel(deck.drawACard(), deck.drawACard());
         this.currentPlayer.startTurn(pair);
         for(RailroadBaronsObserver o: this.observers) {
@@ -89,6 +90,7 @@ public class RailroadBaronsModel implements model.RailroadBarons {
     public void startAGameWith(RailroadMap map, Deck deck) {
         this.map = map;
         this.claimedRoutes = new ArrayList<>();
+        startPlayersOn(map);
         this.deck = deck;
         Pair pair = new PairModel(deck.drawACard(), deck.drawACard());
         this.currentPlayer.startTurn(pair);
@@ -97,6 +99,42 @@ public class RailroadBaronsModel implements model.RailroadBarons {
         }
     }
 
+    /**
+     * Swaps the map the game is played on for a new version of it without starting a new game,
+     * so the deck, the players' hands and whose turn it is all stay the same. The claimed
+     * routes, the game's and each player's, are moved onto their matches on the new map.
+     * @param map The new version of the {@link RailroadMap}, already claimed as the old one was.
+     * @param matches The {@link Route} on the new map for each route on the old map that is
+     *                still there.
+     */
+    @Override
+    public void changeMap(RailroadMap map, Map<Route, Route> matches) {
+        this.map = map;
+        List<Route> kept = new ArrayList<>();
+        for(Route route: this.claimedRoutes) {
+            Route match = matches.get(route);
+            if(match != null) {
+                kept.add(match);
+            }
+        }
+        this.claimedRoutes = kept;
+        for(Player player: this.players) {
+            player.changeMap(map, matches);
+        }
+    }
+
+    /**
+     * Starts every player off on the map. The map may already have routes claimed, e.g. when a
+     * game is picked up again from its claim log, so each player is given the routes their baron
+     * owns along with the points and pieces for them.
+     * @param map The {@link RailroadMap} the game is played on.
+     */
+    private void startPlayersOn(RailroadMap map) {
+        for(Player player: this.players) {
+            ((PlayerModel)player).startOn(map);
+        }
+    }
+
     /**
      * Returns the map currently being used for play. If a game is not in progress, this may be null!
      * @return RailroadMap being used for play.
@@ -219,14 +257,7 @@ public class RailroadBaronsModel implements model.RailroadBarons {
      */
     @Override
     public boolean gameIsOver() {
-        boolean over = true;
-        for(Route route: this.getRailroadMap().getRoutes()) {
-            if(route.getBaron().equals(Baron.UNCLAIMED)) {
-                over =  false;
-            }
-        }
-
-        return over;
+        return this.getRailroadMap().getNumberOfUnclaimedRoutes() == 0;
     }
 
     /**
@@ -1,17 +1,30 @@
 package view;
 
 import javafx.application.Application;
+import javafx.concurrent.Task;
+import javafx.concurrent.Worker;
+import javafx.concurrent.WorkerStateEvent;
 import javafx.event.ActionEvent;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
+import javafx.scene.control.ButtonBar;
+import javafx.scene.control.ButtonType;
+import javafx.scene.control.CheckMenuItem;
+import javafx.scene.control.Label;
 import javafx.scene.control.Menu;
 import javafx.scene.control.MenuBar;
 import javafx.scene.control.MenuItem;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
 import javafx.stage.FileChooser.ExtensionFilter;
 import javafx.stage.Stage;
+import model.MapInfo;
 import model.RailroadBaronsException;
 
 import java.io.File;
@@ -42,6 +55,12 @@ public class RailroadBaronsUI extends Application
      */
     private final FileChooser chooser;
 
+    /**
+     * The {@link DirectoryChooser} used to pick a directory of maps to
+     * choose from.
+     */
+    private final DirectoryChooser directoryChooser;
+
     /**
      * The {@link RailroadBaronsController} used to facilitate communication
      * to and from the model.
@@ -53,6 +72,22 @@ public class RailroadBaronsUI extends Application
      */
     private final Alert errorAlert;
 
+    /**
+     * Shows the progress of a map that is loading, and lets the user cancel
+     * it. Only visible while a map is loading.
+     */
+    private HBox loadingBar;
+
+    /**
+     * Shows how much of the map that is loading has been loaded.
+     */
+    private ProgressBar loadingProgress;
+
+    /**
+     * Shows which stage of loading the map has reached.
+     */
+    private Label loadingMessage;
+
     /**
      * The primary {@link Stage} in which the Railroad Barons used interface
      * is updated.
@@ -66,11 +101,16 @@ public class RailroadBaronsUI extends Application
         // this should be in a class...
         chooser = new FileChooser();
         chooser.getExtensionFilters().addAll(
-            new ExtensionFilter("Railroad Barons Maps (*.rbmap)", "*.rbmap"),
+            new ExtensionFilter("Railroad Barons Maps (*.rbmap, *.rbmap.gz, *.rbmapc)",
+                    "*.rbmap", "*.rbmap.gz", "*.rbmapc"),
             new ExtensionFilter("All Files (*)", "*"));
         chooser.setInitialFileName("map");
         chooser.setInitialDirectory(new File(System.getProperty("user.dir")));
 
+        directoryChooser = new DirectoryChooser();
+        directoryChooser.setInitialDirectory(
+                new File(System.getProperty("user.dir")));
+
         controller = new RailroadBaronsController();
 
         errorAlert = new Alert(Alert.AlertType.ERROR);
@@ -112,7 +152,7 @@ public class RailroadBaronsUI extends Application
         main.setTop(buildMenu());
 
         TextAreaConsole console = controller.getConsole();
-        main.setBottom(console);
+        main.setBottom(new VBox(buildLoadingBar(), console));
 
         Scene scene = new Scene(main);
         primaryStage.setScene(scene);
@@ -136,30 +176,192 @@ public class RailroadBaronsUI extends Application
             startAGame();
         });
 
-        file.getItems().add(startAGame);
+        // choose a map from a directory option
+        MenuItem chooseAMap = new MenuItem("Choose a Map...");
+        chooseAMap.addEventHandler(ActionEvent.ACTION, e -> {
+            chooseAMap();
+        });
+
+        // resume game option
+        MenuItem resumeAGame = new MenuItem("Resume a Game...");
+        resumeAGame.addEventHandler(ActionEvent.ACTION, e -> {
+            resumeAGame();
+        });
+
+        // development mode option
+        CheckMenuItem reload = new CheckMenuItem("Reload Map When Changed");
+        reload.selectedProperty().addListener((observable, was, is) ->
+                controller.setDevelopmentMode(is));
+
+        file.getItems().addAll(startAGame, chooseAMap, resumeAGame, reload);
         menu.getMenus().add(file);
 
         return menu;
     }
 
+    /**
+     * Builds the bar that shows the progress of a map that is loading, with
+     * a button to cancel it. The bar is hidden until a map starts loading.
+     *
+     * @return The loading bar.
+     */
+    private HBox buildLoadingBar() {
+        loadingProgress = new ProgressBar(0);
+        loadingMessage = new Label();
+        Button cancel = new Button("Cancel");
+        cancel.setOnAction(e -> controller.cancelLoadingMap());
+
+        loadingBar = new HBox(10, loadingProgress, loadingMessage, cancel);
+        loadingBar.setAlignment(Pos.CENTER_LEFT);
+        loadingBar.setPadding(DEFAULT_INSETS);
+        loadingBar.setVisible(false);
+        loadingBar.setManaged(false);
+        return loadingBar;
+    }
+
     /**
      * Starts a new game by first prompting the user to open a map file
-     * using the {@linkplain FileChooser file chooser}, loads the map into
-     * the UI using the {@linkplain RailroadBaronsController controller}, and
-     * sizes the stage to fit the new map.
+     * using the {@linkplain FileChooser file chooser}.
      */
     private void startAGame() {
         File selected = chooser.showOpenDialog(primaryStage);
         if(selected != null) {
-            try {
-                controller.loadMap(selected.getAbsolutePath());
-                primaryStage.sizeToScene();
+            startAGame(selected);
+        }
+    }
+
+    /**
+     * Starts a new game on a map picked from a directory of maps. The user
+     * picks the directory using the {@linkplain DirectoryChooser directory
+     * chooser}, the {@linkplain RailroadBaronsController controller} lists
+     * the maps in it in the background while the loading bar is shown, and
+     * the user then chooses a map from a {@link MapChooserDialog}.
+     */
+    private void chooseAMap() {
+        File directory = directoryChooser.showDialog(primaryStage);
+        if(directory == null) {
+            return;
+        }
+
+        Task<List<MapInfo>> task;
+        try {
+            task = controller.listMapsInBackground(
+                    directory.getAbsolutePath());
+        }
+        catch (RailroadBaronsException e) {
+            showLoadError(e.getMessage());
+            return;
+        }
+
+        showProgress(task);
+        task.addEventHandler(WorkerStateEvent.WORKER_STATE_SUCCEEDED, e -> {
+            directoryChooser.setInitialDirectory(directory);
+            new MapChooserDialog(task.getValue()).showAndWait().ifPresent(
+                    map -> startAGame(new File(directory, map.getName())));
+        });
+        task.addEventHandler(WorkerStateEvent.WORKER_STATE_FAILED,
+                e -> showLoadError(task.getException().getMessage()));
+    }
+
+    /**
+     * Starts a new game on a map file, loads the map in the background using
+     * the {@linkplain RailroadBaronsController controller} while showing its
+     * progress, and sizes the stage to fit the new map once it has loaded. If
+     * a game on the map stopped before it was over, the user is first asked
+     * whether to pick that game up again instead.
+     *
+     * @param selected The map file to start the game on.
+     */
+    private void startAGame(File selected) {
+        if(controller.hasUnfinishedGame(selected.getAbsolutePath())) {
+            ButtonType resume = new ButtonType("Resume",
+                    ButtonBar.ButtonData.YES);
+            ButtonType startOver = new ButtonType("Start Over",
+                    ButtonBar.ButtonData.NO);
+            Alert ask = new Alert(Alert.AlertType.CONFIRMATION,
+                    "A game on this map was not finished. Resume it? " +
+                    "Starting over keeps its record as a backup.",
+                    resume, startOver, ButtonType.CANCEL);
+            ask.setTitle("Unfinished game");
+            ButtonType choice = ask.showAndWait().orElse(
+                    ButtonType.CANCEL);
+            if(choice == resume) {
+                resumeAGame(selected);
+                return;
             }
-            catch (RailroadBaronsException e) {
-                errorAlert.setTitle("Failed to load map!");
-                errorAlert.setContentText(e.getMessage());
-                errorAlert.showAndWait();
+            else if(choice != startOver) {
+                return;
             }
         }
+
+        MapLoadTask task;
+        try {
+            task = controller.loadMapInBackground(
+                    selected.getAbsolutePath());
+        }
+        catch (RailroadBaronsException e) {
+            showLoadError(e.getMessage());
+            return;
+        }
+
+        showProgress(task);
+        task.addEventHandler(WorkerStateEvent.WORKER_STATE_SUCCEEDED,
+                e -> primaryStage.sizeToScene());
+        task.addEventHandler(WorkerStateEvent.WORKER_STATE_FAILED,
+                e -> showLoadError(task.getException().getMessage()));
+    }
+
+    /**
+     * Shows the progress of a background task in the loading bar while the
+     * task is running.
+     *
+     * @param task The {@link Worker} whose progress is shown.
+     */
+    private void showProgress(Worker<?> task) {
+        loadingProgress.progressProperty().bind(task.progressProperty());
+        loadingMessage.textProperty().bind(task.messageProperty());
+        loadingBar.visibleProperty().bind(task.runningProperty());
+        loadingBar.managedProperty().bind(task.runningProperty());
+    }
+
+    /**
+     * Picks up a game that stopped part way through by first prompting the
+     * user to open the map file the game was started from using the
+     * {@linkplain FileChooser file chooser}, and then asking the
+     * {@linkplain RailroadBaronsController controller} to start a game on the
+     * map with every route claimed that had been claimed when it stopped.
+     */
+    private void resumeAGame() {
+        File selected = chooser.showOpenDialog(primaryStage);
+        if(selected != null) {
+            resumeAGame(selected);
+        }
+    }
+
+    /**
+     * Picks up a game on a map file that stopped part way through, and sizes
+     * the stage to fit the map.
+     *
+     * @param selected The map file the game was started from.
+     */
+    private void resumeAGame(File selected) {
+        try {
+            controller.resumeMap(selected.getAbsolutePath());
+            primaryStage.sizeToScene();
+        }
+        catch (RailroadBaronsException e) {
+            showLoadError(e.getMessage());
+        }
+    }
+
+    /**
+     * Tells the user that a map could not be loaded.
+     *
+     * @param message Why the map could not be loaded.
+     */
+    private void showLoadError(String message) {
+        errorAlert.setTitle("Failed to load map!");
+        errorAlert.setContentText(message);
+        errorAlert.showAndWait();
     }
 }
@@ -87,6 +87,24 @@ public interface RailroadMap {
      */
     int getLengthOfShortestUnclaimedRoute();
 
+    /**
+     * Returns the number of {@linkplain Route routes} in the map that have
+     * not been claimed by any {@linkplain Baron}. When this reaches 0, no
+     * more plays can be made.
+     *
+     * @return The number of {@link Baron#UNCLAIMED unclaimed} {@link Route
+     * Routes} in the map.
+     */
+    default int getNumberOfUnclaimedRoutes() {
+        int unclaimed = 0;
+        for(Route route : getRoutes()) {
+            if(route.getBaron() == Baron.UNCLAIMED) {
+                unclaimed++;
+            }
+        }
+        return unclaimed;
+    }
+
     /**
      * Returns all of the {@link Route Routes} in this map.
      *
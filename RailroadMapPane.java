@@ -1,11 +1,17 @@
 package view;
 
+import javafx.event.EventHandler;
+import javafx.scene.Node;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Tooltip;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.GridPane;
 import model.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * A view that displays a {@link RailroadMap Railroad Map}.
  */
@@ -51,34 +57,92 @@ public class RailroadMapPane extends GridPane implements RailroadBaronsView {
      * @param map The {@link RailroadMap} to display.
      */
     void setRailroadMap(RailroadMap map) {
+        setRailroadMap(map, map == null ? null : buildSpaces(map, null));
+    }
+
+    /**
+     * Sets the {@linkplain RailroadMap map} that is currently displayed to
+     * the specified map, using {@link SpacePane SpacePanes} that have already
+     * been {@linkplain #buildSpaces(RailroadMap, MapLoadTask) built}. This
+     * must be called on the JavaFX application thread, and only swaps the
+     * panes into the scene.
+     *
+     * @param map The {@link RailroadMap} to display.
+     * @param spaces The {@link SpacePane SpacePanes} that display the map.
+     */
+    void setRailroadMap(RailroadMap map, SpacePane[][] spaces) {
         this.map = map;
         if(map != null) {
             setBackground(LIGHT_BROWN_BACKGROUND);
-            getChildren().clear();
-            int rows = map.getRows();
-            int cols = map.getCols();
-            spaces = new SpacePane[rows][cols];
-
-            for(int row=0; row<rows; row++) {
-                for(int col=0; col<cols; col++) {
-                    Space space = map.getSpace(row, col);
-                    SpacePane pane;
-
-                    if(space instanceof Track) {
-                        Track track = (Track)space;
-                        pane = makeTrackPane(track);
-                    }
-                    else if(space instanceof Station) {
-                        Station station = (Station)space;
-                        pane = makeStationPane(station);
-                    }
-                    else {
-                        pane = new SpacePane(SpaceImage.EMPTY);
-                    }
-
-                    add(pane, col, row);
-                    spaces[row][col] = pane;
-                }
+            this.spaces = spaces;
+
+            List<Node> panes = new ArrayList<>(map.getRows() * map.getCols());
+            for(SpacePane[] row : spaces) {
+                panes.addAll(Arrays.asList(row));
+            }
+            getChildren().setAll(panes);
+        }
+    }
+
+    /**
+     * Builds the {@linkplain SpacePane panes} that display the specified
+     * {@linkplain RailroadMap map}, without adding them to this pane. None of
+     * the panes are attached to the scene, so they may be built on a
+     * background thread. Tracks on routes that have already been claimed are
+     * shown as claimed.
+     *
+     * @param map The {@link RailroadMap} to display.
+     * @param task The {@link MapLoadTask} to report progress to after each
+     *             row, or null if there is none.
+     * @return The {@link SpacePane SpacePanes} by row and column, or null if
+     * the task was cancelled.
+     */
+    SpacePane[][] buildSpaces(RailroadMap map, MapLoadTask task) {
+        int rows = map.getRows();
+        int cols = map.getCols();
+        SpacePane[][] spaces = new SpacePane[rows][cols];
+
+        for(int row=0; row<rows; row++) {
+            for(int col=0; col<cols; col++) {
+                SpacePane pane = makeSpacePane(map.getSpace(row, col));
+                GridPane.setConstraints(pane, col, row);
+                spaces[row][col] = pane;
+            }
+            if(task != null && !task.rowBuilt(row + 1, rows)) {
+                return null;
+            }
+        }
+        return spaces;
+    }
+
+    /**
+     * Switches to a new version of the {@linkplain RailroadMap map} that is
+     * currently displayed, rebuilding only the {@linkplain SpacePane panes}
+     * for the spaces that have changed. If the new map is a different size
+     * the whole map is rebuilt.
+     *
+     * @param map The new version of the {@link RailroadMap}.
+     * @param changed The {@link Space spaces} that may have changed, from
+     *                either version of the map.
+     */
+    void updateRailroadMap(RailroadMap map, List<Space> changed) {
+        if(this.map == null || spaces == null ||
+                map.getRows() != this.map.getRows() ||
+                map.getCols() != this.map.getCols()) {
+            setRailroadMap(map);
+            return;
+        }
+
+        this.map = map;
+        int cols = map.getCols();
+        for(Space space : changed) {
+            int row = space.getRow();
+            int col = space.getCol();
+            if(row >= 0 && row < spaces.length && col >= 0 && col < cols) {
+                SpacePane pane = makeSpacePane(map.getSpace(row, col));
+                GridPane.setConstraints(pane, col, row);
+                spaces[row][col] = pane;
+                getChildren().set(row * cols + col, pane);
             }
         }
     }
@@ -137,11 +201,39 @@ public class RailroadMapPane extends GridPane implements RailroadBaronsView {
         alert.showAndWait();
     }
 
+    /**
+     * Helper method that creates a {@linkplain SpacePane pane} to display
+     * whatever is in a {@linkplain Space space} on the current
+     * {@linkplain RailroadMap map}. Tracks on routes that have already been
+     * claimed are shown as claimed.
+     *
+     * @param space The {@link Space}, which may be a {@link Track}, a
+     *              {@link Station}, or null if the space is empty.
+     * @return The {@link SpacePane} used to display the space.
+     */
+    private SpacePane makeSpacePane(Space space) {
+        if(space instanceof Track) {
+            Track track = (Track)space;
+            SpacePane pane = makeTrackPane(track);
+            if(track.getBaron() != Baron.UNCLAIMED) {
+                pane.claim(track.getBaron());
+            }
+            return pane;
+        }
+        else if(space instanceof Station) {
+            return makeStationPane((Station)space);
+        }
+        return new SpacePane(SpaceImage.EMPTY);
+    }
+
     /**
      * Helper method that creates a {@linkplain SpacePane pane} to display the
      * specified {@linkplain Station station} on the current
      * {@linkplain RailroadMap map}. Adds a {@linkplain Tooltip tooltip} that
-     * will display the station's name when moused over.
+     * will display the station's name when moused over. Tooltips can only be
+     * made on the JavaFX application thread, and most stations are never
+     * moused over, so the tooltip is made and installed the first time the
+     * mouse enters the pane.
      *
      * @param station The {@link Station} for which a {@link SpacePane} is to
      *                be created.
@@ -150,8 +242,14 @@ public class RailroadMapPane extends GridPane implements RailroadBaronsView {
      */
     private SpacePane makeStationPane(Station station) {
         SpacePane pane = new SpacePane(SpaceImage.STATION);
-        Tooltip tooltip = new Tooltip(station.getName());
-        Tooltip.install(pane, tooltip);
+        pane.addEventHandler(MouseEvent.MOUSE_ENTERED,
+                new EventHandler<MouseEvent>() {
+            @Override
+            public void handle(MouseEvent e) {
+                Tooltip.install(pane, new Tooltip(station.getName()));
+                pane.removeEventHandler(MouseEvent.MOUSE_ENTERED, this);
+            }
+        });
         return pane;
     }
 
@@ -9,53 +9,40 @@ import model.Track;
 import java.util.*;
 
 /**
- * Representation of a route connecting two stations on the board
+ * Representation of a route connecting two stations on the board. The route is a view of one
+ * route in a {@link RailroadBaronsMapModel}: where it goes comes from the map's topology, and
+ * who owns it is kept by the map.
  * @author Ben Donahue
  */
 public class RouteModel implements model.Route {
-    private Baron baron;
+    private RailroadBaronsMapModel map;
+    private int id;
     private int length;
     private Station origin;
     private Station destination;
     private Orientation orientation;
-    private List<Track> tracks;
-    private boolean easternMost;
-    private boolean southernMost;
-    private boolean northernMost;
-    private boolean westernMost;
 
     /**
      * Constructor for a route
-     * @param length the length of the route
-     * @param origin the station at the start of the route
-     * @param destination the station at the end of the route
+     * @param map the map the route is on
+     * @param id the id of the route in the map's topology
      * */
-    public RouteModel(int length, Station origin, Station destination) {
-        this.length = length;
-        this.origin = origin;
-        this.destination = destination;
-        this.baron = Baron.UNCLAIMED;
-        this.tracks = new ArrayList<>();
-
-        if(this.origin.getCol() == this.destination.getCol()) {
-            this.orientation = Orientation.VERTICAL;
-        }
-        else if (this.origin.getRow() == this.destination.getRow()){
-            this.orientation = Orientation.HORIZONTAL;
-        }
-        for(int i = 1; i < this.length + 1; i++) {
-            if(this.orientation == Orientation.VERTICAL) {
-                TrackModel track = new TrackModel(this.orientation, null,
-                        this, i + this.origin.getRow(), this.origin.getCol());
-                tracks.add(track);
-            }
+    public RouteModel(RailroadBaronsMapModel map, int id) {
+        MapTopology topology = map.getTopology();
+        this.map = map;
+        this.id = id;
+        this.length = topology.getLength(id);
+        this.origin = topology.getStation(topology.getOrigin(id));
+        this.destination = topology.getStation(topology.getDestination(id));
+        this.orientation = topology.getOrientation(id);
+    }
 
-            else if(this.orientation == Orientation.HORIZONTAL) {
-                TrackModel track = new TrackModel(this.orientation, null,
-                        this, this.origin.getRow(), i + this.origin.getCol());
-                tracks.add(track);
-            }
-        }
+    /**
+     * Accessor for the route id
+     * @return the id of the route
+     */
+    public int getId() {
+        return this.id;
     }
 
     /**
@@ -64,7 +51,7 @@ public class RouteModel implements model.Route {
      */
     @Override
     public Baron getBaron() {
-        return this.baron;
+        return this.map.getOwner(this.id);
     }
 
     /**
@@ -95,12 +82,23 @@ public class RouteModel implements model.Route {
     }
 
     /**
-     * Accessor for the track objects on the route
+     * Accessor for the track objects on the route. The tracks are only views of the route, so
+     * they are made when they are asked for rather than kept by the route.
      * @return the list of tracks on the route
      */
     @Override
     public List<Track> getTracks() {
-        return this.tracks;
+        List<Track> tracks = new ArrayList<>(this.length);
+        for(int i = 1; i < this.length + 1; i++) {
+            if(this.orientation == Orientation.VERTICAL) {
+                tracks.add(new TrackModel(this.orientation, this, i + this.origin.getRow(), this.origin.getCol()));
+            }
+
+            else if(this.orientation == Orientation.HORIZONTAL) {
+                tracks.add(new TrackModel(this.orientation, this, this.origin.getRow(), i + this.origin.getCol()));
+            }
+        }
+        return tracks;
     }
 
     /**
@@ -152,10 +150,13 @@ public class RouteModel implements model.Route {
      */
     @Override
     public boolean includesCoordinate(Space space) {
-        for(Track track: tracks) {
-            if((space.getCol() == track.getCol()) && (space.getRow() == track.getRow())) {
-                return true;
-            }
+        if(this.orientation == Orientation.VERTICAL) {
+            return space.getCol() == this.origin.getCol() && space.getRow() > this.origin.getRow()
+                    && space.getRow() <= this.origin.getRow() + this.length;
+        }
+        else if(this.orientation == Orientation.HORIZONTAL) {
+            return space.getRow() == this.origin.getRow() && space.getCol() > this.origin.getCol()
+                    && space.getCol() <= this.origin.getCol() + this.length;
         }
         return false;
     }
@@ -169,39 +170,14 @@ public class RouteModel implements model.Route {
      */
     @Override
     public boolean claim(Baron claimant) {
-        if(this.baron.equals(Baron.UNCLAIMED)) {
-            this.baron = claimant;
-            for(Track track: this.tracks) {
-                TrackModel t = (TrackModel)track;
-                t.setBaron(claimant);
-
-            }
-            return true;
-        }
-
-        return false;
+        return this.map.claim(this.id, claimant);
     }
 
-    public void setAsDirectionMost(String direction) {
-        switch(direction) {
-            case "s":
-                this.southernMost = true;
-                break;
-
-            case "e":
-                this.easternMost = true;
-                break;
-
-            case "n":
-                this.northernMost = true;
-                break;
-
-            case "w":
-                this.westernMost = true;
-                break;
-
-            default:
-                break;
-        }
+    /**
+     * Accessor for the edges of the map this route touches
+     * @return the BaronNetwork NORTH, SOUTH, EAST and WEST bits of the edges the route touches
+     */
+    public int getEdges() {
+        return this.map.getTopology().getEdges(this.id);
     }
 }
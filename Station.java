@@ -12,4 +12,15 @@ public interface Station extends Space {
      * @return The name of the station.
      */
     String getName();
+
+    /**
+     * The number the station was given in the map file. The number stays the
+     * same when the station is renamed or moved, so it identifies the station
+     * between versions of a map. By default stations are not numbered.
+     *
+     * @return The number of the station, or -1 if it has none.
+     */
+    default int getNumber() {
+        return -1;
+    }
 }
@@ -0,0 +1,102 @@
+package student;
+
+import java.util.Arrays;
+
+/**
+ * Looks up station ids by the number the station was given in the map file. Station numbers
+ * can be any int, so they are kept in an open addressing hash table of primitive ints rather
+ * than a map of boxed Integers.
+ */
+public class StationIndex {
+    private static final int EMPTY = -1;
+
+    private int[] numbers;
+    private int[] ids;
+    private int size;
+
+    /**
+     * Constructor for an empty index
+     * @param expected roughly how many stations will be added
+     */
+    public StationIndex(int expected) {
+        int capacity = 16;
+        while(capacity < expected * 2) {
+            capacity *= 2;
+        }
+        this.numbers = new int[capacity];
+        this.ids = new int[capacity];
+        Arrays.fill(this.ids, EMPTY);
+    }
+
+    /**
+     * Constructor for an index of stations that have already been numbered
+     * @param stationNumbers the number of each station, indexed by station id
+     */
+    public StationIndex(int[] stationNumbers) {
+        this(stationNumbers.length);
+        for(int i = 0; i < stationNumbers.length; i++) {
+            put(stationNumbers[i], i);
+        }
+    }
+
+    /**
+     * Adds a station to the index, replacing any station that already had the same number.
+     * @param number the station's number in the map file
+     * @param id the station's id
+     * @return the id of the station that was replaced, or -1 if the number was new
+     */
+    public int put(int number, int id) {
+        if(this.size * 2 >= this.numbers.length) {
+            grow();
+        }
+        int slot = slot(number);
+        int replaced = this.ids[slot];
+        if(replaced == EMPTY) {
+            this.size++;
+        }
+        this.numbers[slot] = number;
+        this.ids[slot] = id;
+        return replaced;
+    }
+
+    /**
+     * Looks up a station id.
+     * @param number the station's number in the map file
+     * @return the station's id, or -1 if there is no station with that number
+     */
+    public int get(int number) {
+        return this.ids[slot(number)];
+    }
+
+    /**
+     * Finds the slot a station number is in, or the empty slot it would go in.
+     * @param number the station number
+     * @return the slot for the number
+     */
+    private int slot(int number) {
+        int mask = this.numbers.length - 1;
+        int hash = number * 0x9E3779B9;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while(this.ids[slot] != EMPTY && this.numbers[slot] != number) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Doubles the size of the table, putting every station back in.
+     */
+    private void grow() {
+        int[] oldNumbers = this.numbers;
+        int[] oldIds = this.ids;
+        this.numbers = new int[oldNumbers.length * 2];
+        this.ids = new int[oldIds.length * 2];
+        Arrays.fill(this.ids, EMPTY);
+        this.size = 0;
+        for(int i = 0; i < oldNumbers.length; i++) {
+            if(oldIds[i] != EMPTY) {
+                put(oldNumbers[i], oldIds[i]);
+            }
+        }
+    }
+}
@@ -7,6 +7,8 @@ import model.Space;
  * @author Ben Donahue
  */
 public class StationModel implements model.Station {
+    private int id;
+    private int number;
     private String name;
     private int col;
     private int row;
@@ -14,16 +16,37 @@ public class StationModel implements model.Station {
 
     /**
      * Constructor for a StationModel
-     * @param name the name of the station
+     * @param id the id of the station, numbered from 0 in the order the stations were read
+     * @param number the number the station was given in the map file
      * @param row the row the station is on
      * @param col the column the station is on
+     * @param name the name of the station
      */
-    public StationModel(int row, int col, String name) {
+    public StationModel(int id, int number, int row, int col, String name) {
+        this.id = id;
+        this.number = number;
         this.col = col;
         this.row = row;
         this.name = name;
     }
 
+    /**
+     * Get the id of the station
+     * @return the id of the station
+     */
+    public int getId() {
+        return this.id;
+    }
+
+    /**
+     * Get the number the station was given in the map file
+     * @return the number of the station
+     */
+    @Override
+    public int getNumber() {
+        return this.number;
+    }
+
     /**
      * Get the name of the station
      * @return the name of the station
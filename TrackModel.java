@@ -12,22 +12,20 @@ import model.Space;
 
 public class TrackModel implements model.Track {
     private Orientation orientation;
-    private Baron baron;
     private Route route;
     private int row;
     private int column;
 
     /**
-     * Constructor for a track
+     * Constructor for a track. The track does not keep an owner of its own, it is owned by
+     * whoever owns its route.
      * @param orientation the orientation of the track
-     * @param baron the owner of the track
      * @param route the route that the track belongs to
      * @param row the row number that the track is in
      * @param column the column number that the track is in
      * */
-    public TrackModel(Orientation orientation, Baron baron, Route route, int row, int column) {
+    public TrackModel(Orientation orientation, Route route, int row, int column) {
         this.orientation = orientation;
-        this.baron = Baron.UNCLAIMED;
         this.route = route;
         this.row = row;
         this.column = column;
@@ -48,7 +46,7 @@ public class TrackModel implements model.Track {
      * @return the baron of the route
      */
     public Baron getBaron() {
-        return this.baron;
+        return this.route.getBaron();
     }
 
     @Override
@@ -89,9 +87,5 @@ public class TrackModel implements model.Track {
         return false;
     }
 
-    public void setBaron(Baron baron) {
-        this.baron = baron;
-    }
-
 }
 
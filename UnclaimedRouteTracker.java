@@ -0,0 +1,85 @@
+package student;
+
+/**
+ * Keeps a count of the unclaimed routes of each length on a map so that the shortest
+ * unclaimed route, and whether any routes are left at all, can be found without searching
+ * through every route each turn.
+ */
+public class UnclaimedRouteTracker {
+    private int[] unclaimedByLength;
+    private int shortest;
+    private int unclaimed;
+
+    /**
+     * Constructor for the tracker, counts every route that has not been claimed yet.
+     * @param topology the layout of the map
+     * @param owners the owner of each route, by Baron ordinal
+     */
+    public UnclaimedRouteTracker(MapTopology topology, byte[] owners) {
+        this.unclaimedByLength = new int[topology.getLongestRoute() + 1];
+        for(int route = 0; route < owners.length; route++) {
+            if(owners[route] == 0) {
+                this.unclaimedByLength[topology.getLength(route)]++;
+                this.unclaimed++;
+            }
+        }
+        this.shortest = 0;
+        advanceShortest();
+    }
+
+    /**
+     * Removes a route from the unclaimed counts. Should be called exactly once, when the
+     * route goes from unclaimed to claimed.
+     * @param length the length of the route that has just been claimed
+     */
+    public void routeClaimed(int length) {
+        if(length < this.unclaimedByLength.length && this.unclaimedByLength[length] > 0) {
+            this.unclaimedByLength[length]--;
+            this.unclaimed--;
+            if(length == this.shortest) {
+                advanceShortest();
+            }
+        }
+    }
+
+    /**
+     * Accessor for the length of the shortest unclaimed route
+     * @return the length of the shortest unclaimed route, or -1 if every route is claimed
+     */
+    public int getShortestLength() {
+        if(this.shortest < this.unclaimedByLength.length) {
+            return this.shortest;
+        }
+        return -1;
+    }
+
+    /**
+     * Accessor for the number of routes that have not been claimed
+     * @return the number of unclaimed routes
+     */
+    public int getUnclaimedCount() {
+        return this.unclaimed;
+    }
+
+    /**
+     * Accessor for the number of routes of a given length that have not been claimed
+     * @param length the number of tracks
+     * @return the number of unclaimed routes with that many tracks
+     */
+    public int getUnclaimedCount(int length) {
+        if(length < 0 || length >= this.unclaimedByLength.length) {
+            return 0;
+        }
+        return this.unclaimedByLength[length];
+    }
+
+    /**
+     * Moves the cached shortest length up to the next length that still has an unclaimed
+     * route. Routes are never unclaimed, so the shortest length only ever grows.
+     */
+    private void advanceShortest() {
+        while(this.shortest < this.unclaimedByLength.length && this.unclaimedByLength[this.shortest] == 0) {
+            this.shortest++;
+        }
+    }
+}
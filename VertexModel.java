@@ -1,31 +1,68 @@
 package student;
 
+import model.Route;
 import model.Station;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
- * Class that would have been used for graph implementation, unfinished
+ * A single station in the graph along with the routes that touch it. This is only a view
+ * into the graph, the neighbors are read straight out of the graph's arrays.
  * @author Ben Donahue
  */
 public class VertexModel {
-    private List<Station> neighbors;
-    private Station station;
+    private RailroadBaronsMapModel map;
+    private Graph graph;
+    private int station;
 
-    public VertexModel(Station station) {
-        this.neighbors = new ArrayList<>();
+    /**
+     * Constructor for a vertex
+     * @param map the map the station is on
+     * @param station the id of the station
+     */
+    public VertexModel(RailroadBaronsMapModel map, int station) {
+        this.map = map;
+        this.graph = map.getGraph();
         this.station = station;
     }
-    public Station getStation() {
+
+    /**
+     * Accessor for the id of the station
+     * @return the id of the station
+     */
+    public int getId() {
         return this.station;
     }
 
-    public List<Station> getNeighbors() {
-        return this.neighbors;
+    /**
+     * Accessor for the station
+     * @return the station
+     */
+    public Station getStation() {
+        return this.map.getStation(this.station);
+    }
+
+    /**
+     * Accessor for the number of neighbors of the station
+     * @return how many routes touch the station
+     */
+    public int getDegree() {
+        return this.graph.getDegree(this.station);
+    }
+
+    /**
+     * Accessor for one of the neighbors of the station
+     * @param i which neighbor to get, from 0 to the degree of the station
+     * @return the neighboring station
+     */
+    public Station getNeighbor(int i) {
+        return this.map.getStation(this.graph.getEdgeStation(this.graph.getFirstEdge(this.station) + i));
     }
 
-    public void addNeighbor(Station station) {
-        this.neighbors.add(station);
+    /**
+     * Accessor for the route leading to one of the neighbors of the station
+     * @param i which neighbor's route to get, from 0 to the degree of the station
+     * @return the route between the station and the neighbor
+     */
+    public Route getRoute(int i) {
+        return this.map.getRoute(this.graph.getEdgeRoute(this.graph.getFirstEdge(this.station) + i));
     }
 }
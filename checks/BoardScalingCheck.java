@@ -0,0 +1,111 @@
+package student;
+
+import model.RailroadMap;
+import model.Space;
+
+/**
+ * A standalone timing check that board construction grows linearly with the size of the map.
+ * Square maps of several sizes, up to 1000 by 1000, are filled with a grid of stations joined
+ * by horizontal and vertical routes. For each size the check times building the map and then
+ * looking up every space on it, which is what {@code RailroadMapPane} does to draw the board.
+ * If the time per space on the largest map is more than {@link #TOLERANCE} times the time per
+ * space on the smallest map, the board is not being built in linear time and the check fails.
+ * The tolerance leaves room for caches and garbage collection on the larger maps; a board built
+ * by searching the routes for every space would take about 16 times longer per space.
+ *
+ * This check is not part of the game: it lives in the {@code checks} directory and is compiled
+ * against the game's classes, e.g. {@code javac -cp classes -d checks-classes checks/*.java}.
+ * Run it with {@code java -cp classes:checks-classes student.BoardScalingCheck}; it exits with
+ * status 1 if the check fails.
+ */
+public class BoardScalingCheck {
+    private static final int[] SIZES = {250, 500, 1000};
+    private static final int SPACING = 10;
+    private static final int RUNS = 5;
+    private static final double TOLERANCE = 6.0;
+
+    /**
+     * Times board construction at each size and checks that it scales linearly.
+     * @param args not used
+     * @throws InvalidMapException if a map cannot be built
+     */
+    public static void main(String[] args) throws InvalidMapException {
+        //warm up so the smallest size is not timed while still being compiled
+        for(int i = 0; i < RUNS; i++) {
+            buildBoard(SIZES[SIZES.length - 1]);
+        }
+
+        double[] perSpace = new double[SIZES.length];
+        for(int i = 0; i < SIZES.length; i++) {
+            long best = Long.MAX_VALUE;
+            for(int run = 0; run < RUNS; run++) {
+                long start = System.nanoTime();
+                buildBoard(SIZES[i]);
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            perSpace[i] = (double)best / ((long)SIZES[i] * SIZES[i]);
+            System.out.printf("%d x %d: %.1f ms, %.1f ns per space%n", SIZES[i], SIZES[i], best / 1e6,
+                    perSpace[i]);
+        }
+
+        double growth = perSpace[SIZES.length - 1] / perSpace[0];
+        System.out.printf("time per space grew %.2f times from %d x %d to %d x %d%n", growth, SIZES[0], SIZES[0],
+                SIZES[SIZES.length - 1], SIZES[SIZES.length - 1]);
+        if(growth > TOLERANCE) {
+            System.out.println("FAILED: board construction is not linear in the size of the map");
+            System.exit(1);
+        }
+        System.out.println("passed");
+    }
+
+    /**
+     * Builds a square map with a station every {@link #SPACING} spaces, each joined to the
+     * stations east and south of it, and looks up every space on the map.
+     * @param size the number of rows and columns
+     * @return the number of spaces that hold a station or track, so the lookups are not
+     * optimized away
+     * @throws InvalidMapException if the map cannot be built
+     */
+    private static int buildBoard(int size) throws InvalidMapException {
+        int across = (size - 1) / SPACING + 1;
+        int stations = across * across;
+        int[] numbers = new int[stations];
+        int[] rows = new int[stations];
+        int[] cols = new int[stations];
+        String[] names = new String[stations];
+        for(int i = 0; i < stations; i++) {
+            numbers[i] = i;
+            rows[i] = (i / across) * SPACING;
+            cols[i] = (i % across) * SPACING;
+            names[i] = "Station " + i;
+        }
+
+        int routes = 2 * across * (across - 1);
+        int[] origins = new int[routes];
+        int[] destinations = new int[routes];
+        int route = 0;
+        for(int i = 0; i < stations; i++) {
+            if(i % across < across - 1) {
+                origins[route] = i;
+                destinations[route++] = i + 1;
+            }
+            if(i / across < across - 1) {
+                origins[route] = i;
+                destinations[route++] = i + across;
+            }
+        }
+
+        RailroadMap map = new RailroadBaronsMapModel(new MapTopology(numbers, rows, cols, names, origins,
+                destinations));
+        int used = 0;
+        for(int row = 0; row < map.getRows(); row++) {
+            for(int col = 0; col < map.getCols(); col++) {
+                Space space = map.getSpace(row, col);
+                if(space != null) {
+                    used++;
+                }
+            }
+        }
+        return used;
+    }
+}
@@ -0,0 +1,138 @@
+package student;
+
+import model.Baron;
+
+import java.util.Random;
+
+/**
+ * A standalone benchmark of how long it takes to keep each baron's longest continuous track up
+ * to date as routes are claimed on a dense map. The map is a grid of stations two spaces apart,
+ * each joined to its neighbors to the east and south by a route one track long, so every
+ * station has up to four routes and a baron's network is full of loops.
+ *
+ * Two games are timed, each claiming routes in a random order and asking for the claimant's
+ * longest track after every claim:
+ * <ul>
+ *     <li>four barons taking turns, each stopping when their 45 pieces are used up, as in a
+ *     real game, and</li>
+ *     <li>a single baron claiming every route on the map, with no limit on pieces, which is as
+ *     hard as the search gets.</li>
+ * </ul>
+ * The slowest claim in each game is reported, and the benchmark fails if any claim took longer
+ * than {@link #LIMIT_MILLIS}.
+ *
+ * This benchmark is not part of the game: it lives in the {@code checks} directory and is
+ * compiled against the game's classes, e.g. {@code javac -cp classes -d checks-classes checks/*.java}.
+ * Run it with {@code java -cp classes:checks-classes student.LongestTrackBenchmark}; it exits
+ * with status 1 if it fails.
+ */
+public class LongestTrackBenchmark {
+    private static final int GRID = 20;
+    private static final int PIECES = 45;
+    private static final Baron[] BARONS = {Baron.RED, Baron.BLUE, Baron.GREEN, Baron.YELLOW};
+    private static final long LIMIT_MILLIS = 250;
+
+    /**
+     * Runs both games and checks the slowest claim.
+     * @param args not used
+     * @throws InvalidMapException if the map cannot be built
+     */
+    public static void main(String[] args) throws InvalidMapException {
+        MapTopology topology = grid(GRID);
+        System.out.println(GRID + " x " + GRID + " stations, " + topology.getRouteCount() + " routes");
+
+        //warm up
+        play(topology, BARONS, PIECES, new Random(0));
+
+        long game = play(topology, BARONS, PIECES, new Random(1));
+        System.out.printf("four barons, %d pieces each: slowest claim %.2f ms%n", PIECES, game / 1e6);
+        long unlimited = play(topology, new Baron[] {Baron.RED}, Integer.MAX_VALUE, new Random(2));
+        System.out.printf("one baron, every route: slowest claim %.2f ms%n", unlimited / 1e6);
+
+        if(Math.max(game, unlimited) > LIMIT_MILLIS * 1000000) {
+            System.out.println("FAILED: a claim took longer than " + LIMIT_MILLIS + " ms");
+            System.exit(1);
+        }
+        System.out.println("passed");
+    }
+
+    /**
+     * Plays a game on a fresh map, with the barons taking turns to claim a random unclaimed
+     * route until none of them has the pieces left or there are no routes left.
+     * @param topology the map
+     * @param barons the barons playing
+     * @param pieces the number of pieces each baron has
+     * @param random where the order of the claims comes from
+     * @return the longest time taken by a claim and the longest track update after it, in
+     * nanoseconds
+     */
+    private static long play(MapTopology topology, Baron[] barons, int pieces, Random random) {
+        RailroadBaronsMapModel map = new RailroadBaronsMapModel(topology);
+        int[] order = new int[topology.getRouteCount()];
+        for(int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        for(int i = order.length - 1; i > 0; i--) {
+            int swap = random.nextInt(i + 1);
+            int route = order[i];
+            order[i] = order[swap];
+            order[swap] = route;
+        }
+
+        int[] left = new int[barons.length];
+        for(int i = 0; i < barons.length; i++) {
+            left[i] = pieces;
+        }
+        long slowest = 0;
+        int turn = 0;
+        for(int route: order) {
+            int player = turn++ % barons.length;
+            if(left[player] < topology.getLength(route)) {
+                continue;
+            }
+            left[player] -= topology.getLength(route);
+            long start = System.nanoTime();
+            map.claim(route, barons[player]);
+            map.getLongestTrack(barons[player]);
+            slowest = Math.max(slowest, System.nanoTime() - start);
+        }
+        return slowest;
+    }
+
+    /**
+     * Builds a square grid of stations two spaces apart, each joined to the stations east and
+     * south of it.
+     * @param size the number of stations along each side
+     * @return the map
+     * @throws InvalidMapException if the map cannot be built
+     */
+    private static MapTopology grid(int size) throws InvalidMapException {
+        int stations = size * size;
+        int[] numbers = new int[stations];
+        int[] rows = new int[stations];
+        int[] cols = new int[stations];
+        String[] names = new String[stations];
+        for(int i = 0; i < stations; i++) {
+            numbers[i] = i;
+            rows[i] = (i / size) * 2;
+            cols[i] = (i % size) * 2;
+            names[i] = "Station " + i;
+        }
+
+        int routes = 2 * size * (size - 1);
+        int[] origins = new int[routes];
+        int[] destinations = new int[routes];
+        int route = 0;
+        for(int i = 0; i < stations; i++) {
+            if(i % size < size - 1) {
+                origins[route] = i;
+                destinations[route++] = i + 1;
+            }
+            if(i / size < size - 1) {
+                origins[route] = i;
+                destinations[route++] = i + size;
+            }
+        }
+        return new MapTopology(numbers, rows, cols, names, origins, destinations);
+    }
+}